@@ -0,0 +1,131 @@
+package com.healthtracker.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Streaming anomaly detector for one user. A day is scored against the
+ * {@code baselineDays} calendar days before it, using the median and MAD of each metric
+ * (see {@link RobustBaseline}), so its score depends only on its own history and not on
+ * whichever view later displays it.
+ * <p>
+ * The detector follows the latest recorded day (the head). The days before the head are kept
+ * in a ring indexed by epoch day and in a {@link MedianWindow} per metric, whose baselines are
+ * refreshed on every change, so moving the head forward costs O(log n) per day entering or
+ * leaving the window and scoring the head is constant time. Days older than the head are not
+ * scored here, since their baselines differ; see {@link #score(EntryColumns, int, int)}.
+ */
+public class AnomalyDetector {
+    
+    private final int baselineDays;
+    private final int minBaselineDays;
+    private final int[] steps;
+    private final int[] calories;
+    private final boolean[] present;
+    private final MedianWindow stepsWindow;
+    private final MedianWindow caloriesWindow;
+    
+    private long headDay = Long.MIN_VALUE;
+    private RobustBaseline stepsBaseline;
+    private RobustBaseline caloriesBaseline;
+    
+    public AnomalyDetector(int baselineDays, int minBaselineDays) {
+        this.baselineDays = baselineDays;
+        this.minBaselineDays = minBaselineDays;
+        this.steps = new int[baselineDays + 1];
+        this.calories = new int[baselineDays + 1];
+        this.present = new boolean[baselineDays + 1];
+        this.stepsWindow = new MedianWindow(baselineDays);
+        this.caloriesWindow = new MedianWindow(baselineDays);
+        refreshBaselines();
+    }
+    
+    /**
+     * Records a day's values and returns its score when it is the head, or null when it is an
+     * earlier day, which the caller scores against its own preceding days.
+     */
+    public synchronized AnomalyScore record(LocalDate date, int daySteps, int dayCalories) {
+        long day = date.toEpochDay();
+        if (headDay == Long.MIN_VALUE || day > headDay) {
+            advanceTo(day);
+        } else if (day < headDay) {
+            if (day >= headDay - baselineDays) {
+                replace(slot(day), daySteps, dayCalories);
+            }
+            return null;
+        }
+        
+        int slot = slot(day);
+        steps[slot] = daySteps;
+        calories[slot] = dayCalories;
+        present[slot] = true;
+        return score(stepsBaseline, caloriesBaseline, daySteps, dayCalories);
+    }
+    
+    /**
+     * Scores a day against the given baseline days, for days the detector no longer holds.
+     */
+    public AnomalyScore score(EntryColumns baseline, int daySteps, int dayCalories) {
+        MedianWindow baselineSteps = new MedianWindow(baseline.size());
+        MedianWindow baselineCalories = new MedianWindow(baseline.size());
+        for (int i = 0; i < baseline.size(); i++) {
+            baselineSteps.add(baseline.steps(i));
+            baselineCalories.add(baseline.calories(i));
+        }
+        return score(baselineSteps.baseline(), baselineCalories.baseline(), daySteps, dayCalories);
+    }
+    
+    private AnomalyScore score(RobustBaseline stepsBase, RobustBaseline caloriesBase, int daySteps, int dayCalories) {
+        if (stepsBase.size() < minBaselineDays) {
+            return AnomalyScore.UNSCORED;
+        }
+        return new AnomalyScore(stepsBase.score(daySteps), caloriesBase.score(dayCalories));
+    }
+    
+    private void advanceTo(long day) {
+        if (headDay != Long.MIN_VALUE && day - headDay <= baselineDays) {
+            // Days that fall out of the baseline are dropped and the old head joins it.
+            for (long d = headDay - baselineDays; d < day - baselineDays; d++) {
+                int slot = slot(d);
+                if (present[slot]) {
+                    stepsWindow.remove(steps[slot]);
+                    caloriesWindow.remove(calories[slot]);
+                    present[slot] = false;
+                }
+            }
+            int headSlot = slot(headDay);
+            if (present[headSlot]) {
+                stepsWindow.add(steps[headSlot]);
+                caloriesWindow.add(calories[headSlot]);
+            }
+        } else {
+            stepsWindow.clear();
+            caloriesWindow.clear();
+            Arrays.fill(present, false);
+        }
+        headDay = day;
+        refreshBaselines();
+    }
+    
+    private void replace(int slot, int daySteps, int dayCalories) {
+        if (present[slot]) {
+            stepsWindow.remove(steps[slot]);
+            caloriesWindow.remove(calories[slot]);
+        }
+        stepsWindow.add(daySteps);
+        caloriesWindow.add(dayCalories);
+        steps[slot] = daySteps;
+        calories[slot] = dayCalories;
+        present[slot] = true;
+        refreshBaselines();
+    }
+    
+    private void refreshBaselines() {
+        stepsBaseline = stepsWindow.baseline();
+        caloriesBaseline = caloriesWindow.baseline();
+    }
+    
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) steps.length);
+    }
+}
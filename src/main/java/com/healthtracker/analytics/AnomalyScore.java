@@ -0,0 +1,33 @@
+package com.healthtracker.analytics;
+
+/**
+ * Robust z-scores of one day's steps and calories against the days before it; NaN when the
+ * baseline was too short to score. The day is anomalous when either metric lies beyond
+ * {@link #THRESHOLD}, and its type names the metric furthest out.
+ */
+public record AnomalyScore(double steps, double calories) {
+    
+    public static final double THRESHOLD = 3.5;
+    
+    public static final AnomalyScore UNSCORED = new AnomalyScore(Double.NaN, Double.NaN);
+    
+    public boolean isScored() {
+        return !Double.isNaN(steps);
+    }
+    
+    /** The larger of the two absolute scores. */
+    public double value() {
+        return Math.max(Math.abs(steps), Math.abs(calories));
+    }
+    
+    public boolean isAnomaly() {
+        return isScored() && value() > THRESHOLD;
+    }
+    
+    public String type() {
+        if (!isAnomaly()) return null;
+        return Math.abs(steps) >= Math.abs(calories)
+                ? (steps > 0 ? "HIGH_STEPS" : "LOW_STEPS")
+                : (calories > 0 ? "HIGH_CALORIES" : "LOW_CALORIES");
+    }
+}
@@ -0,0 +1,131 @@
+package com.healthtracker.analytics;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * One user's daily steps and calories, stored off-heap and indexed by epoch day. Each day
+ * takes two ints in a direct value buffer plus one flag byte (present, anomaly), so a
+ * decade of history costs about 33 KB outside the Java heap and no per-day objects.
+ * The buffers grow in either direction as earlier or later days are written.
+ */
+public final class DailySeries {
+    
+    private static final int VALUE_BYTES = 2 * Integer.BYTES;
+    private static final byte PRESENT = 1;
+    private static final byte ANOMALY = 2;
+    private static final int MIN_CAPACITY = 64;
+    
+    private long firstDay;
+    private int capacity;
+    private ByteBuffer values;
+    private ByteBuffer flags;
+    private volatile long lastAccess;
+    
+    public DailySeries() {
+        touch();
+    }
+    
+    public synchronized void set(LocalDate date, int steps, int calories, boolean anomaly) {
+        long day = date.toEpochDay();
+        ensureCapacity(day);
+        int index = (int) (day - firstDay);
+        values.putInt(index * VALUE_BYTES, steps);
+        values.putInt(index * VALUE_BYTES + Integer.BYTES, calories);
+        flags.put(index, (byte) (PRESENT | (anomaly ? ANOMALY : 0)));
+    }
+    
+    /**
+     * Returns the recorded days between {@code from} and {@code to} inclusive, oldest first.
+     */
+    public synchronized EntryColumns columns(LocalDate from, LocalDate to) {
+        if (values == null) return empty();
+        int start = (int) Math.max(0, from.toEpochDay() - firstDay);
+        int end = (int) Math.min(capacity - 1L, to.toEpochDay() - firstDay);
+        
+        int count = 0;
+        for (int i = start; i <= end; i++) {
+            if ((flags.get(i) & PRESENT) != 0) count++;
+        }
+        return copy(start, end, count);
+    }
+    
+    /**
+     * Returns the latest {@code limit} recorded days on or before {@code asOf}, oldest first.
+     */
+    public synchronized EntryColumns latest(int limit, LocalDate asOf) {
+        if (values == null) return empty();
+        int end = (int) Math.min(capacity - 1L, asOf.toEpochDay() - firstDay);
+        
+        int start = end + 1;
+        int count = 0;
+        while (start > 0 && count < limit) {
+            start--;
+            if ((flags.get(start) & PRESENT) != 0) count++;
+        }
+        return copy(start, end, count);
+    }
+    
+    public long getLastAccess() {
+        return lastAccess;
+    }
+    
+    public void touch() {
+        lastAccess = System.nanoTime();
+    }
+    
+    private EntryColumns copy(int start, int end, int count) {
+        long[] epochDays = new long[count];
+        int[] steps = new int[count];
+        int[] calories = new int[count];
+        boolean[] anomalies = new boolean[count];
+        int row = 0;
+        for (int i = start; i <= end && row < count; i++) {
+            byte flag = flags.get(i);
+            if ((flag & PRESENT) == 0) continue;
+            epochDays[row] = firstDay + i;
+            steps[row] = values.getInt(i * VALUE_BYTES);
+            calories[row] = values.getInt(i * VALUE_BYTES + Integer.BYTES);
+            anomalies[row] = (flag & ANOMALY) != 0;
+            row++;
+        }
+        return new EntryColumns(epochDays, steps, calories, anomalies);
+    }
+    
+    private void ensureCapacity(long day) {
+        if (values == null) {
+            firstDay = day;
+            allocate(MIN_CAPACITY);
+            return;
+        }
+        if (day >= firstDay && day < firstDay + capacity) return;
+        
+        long newFirst = Math.min(firstDay, day);
+        long newEnd = Math.max(firstDay + capacity, day + 1);
+        long needed = newEnd - newFirst;
+        int newCapacity = (int) Math.max(needed, Math.min(Integer.MAX_VALUE / VALUE_BYTES, (long) capacity * 2));
+        // Grow towards the side being written so repeated backfills do not copy every time.
+        if (day < firstDay) {
+            newFirst = newEnd - newCapacity;
+        }
+        
+        int shift = (int) (firstDay - newFirst);
+        ByteBuffer oldValues = values;
+        ByteBuffer oldFlags = flags;
+        int oldCapacity = capacity;
+        firstDay = newFirst;
+        allocate(newCapacity);
+        values.put(shift * VALUE_BYTES, oldValues, 0, oldCapacity * VALUE_BYTES);
+        flags.put(shift, oldFlags, 0, oldCapacity);
+    }
+    
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        values = ByteBuffer.allocateDirect(newCapacity * VALUE_BYTES);
+        flags = ByteBuffer.allocateDirect(newCapacity);
+    }
+    
+    private static EntryColumns empty() {
+        return new EntryColumns(new long[0], new int[0], new int[0], new boolean[0]);
+    }
+}
@@ -0,0 +1,120 @@
+package com.healthtracker.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Steps and calories statistics over the last {@code windowDays} calendar days of one user.
+ * Days are stored in a ring indexed by epoch day, so recording a day, rolling the window
+ * forward and reading a snapshot are all constant time for a fixed window length.
+ */
+public class DailyWindowStats {
+    
+    private final int windowDays;
+    private final int[] steps;
+    private final int[] calories;
+    private final boolean[] present;
+    private final RunningStats stepsStats = new RunningStats();
+    private final RunningStats caloriesStats = new RunningStats();
+    
+    private long latestDay = Long.MIN_VALUE;
+    private int stepsMin;
+    private int stepsMax;
+    private int caloriesMin;
+    private int caloriesMax;
+    private boolean extremesStale;
+    
+    public DailyWindowStats(int windowDays) {
+        this.windowDays = windowDays;
+        this.steps = new int[windowDays];
+        this.calories = new int[windowDays];
+        this.present = new boolean[windowDays];
+    }
+    
+    public synchronized void record(LocalDate date, int daySteps, int dayCalories) {
+        long day = date.toEpochDay();
+        if (latestDay != Long.MIN_VALUE && day <= latestDay - windowDays) {
+            return;
+        }
+        advanceTo(day);
+        
+        int slot = slot(day);
+        if (present[slot]) {
+            stepsStats.replace(steps[slot], daySteps);
+            caloriesStats.replace(calories[slot], dayCalories);
+            extremesStale = true;
+        } else {
+            stepsStats.add(daySteps);
+            caloriesStats.add(dayCalories);
+            present[slot] = true;
+            widenExtremes(daySteps, dayCalories);
+        }
+        steps[slot] = daySteps;
+        calories[slot] = dayCalories;
+    }
+    
+    public synchronized WindowSnapshot snapshot(LocalDate asOf) {
+        advanceTo(asOf.toEpochDay());
+        if (extremesStale) {
+            recomputeExtremes();
+        }
+        long count = stepsStats.getCount();
+        return new WindowSnapshot(
+                (int) count,
+                (long) stepsStats.getSum(), stepsStats.getMean(), stepsStats.getStdDev(),
+                count == 0 ? 0 : stepsMin, count == 0 ? 0 : stepsMax,
+                (long) caloriesStats.getSum(), caloriesStats.getMean(), caloriesStats.getStdDev(),
+                count == 0 ? 0 : caloriesMin, count == 0 ? 0 : caloriesMax);
+    }
+    
+    private void advanceTo(long day) {
+        if (latestDay == Long.MIN_VALUE) {
+            latestDay = day;
+            return;
+        }
+        if (day <= latestDay) {
+            return;
+        }
+        long evictFrom = latestDay - windowDays + 1;
+        long evictTo = Math.min(day - windowDays, latestDay);
+        for (long d = evictFrom; d <= evictTo; d++) {
+            int slot = slot(d);
+            if (present[slot]) {
+                stepsStats.remove(steps[slot]);
+                caloriesStats.remove(calories[slot]);
+                present[slot] = false;
+                extremesStale = true;
+            }
+        }
+        latestDay = day;
+    }
+    
+    private void widenExtremes(int daySteps, int dayCalories) {
+        if (stepsStats.getCount() == 1) {
+            stepsMin = stepsMax = daySteps;
+            caloriesMin = caloriesMax = dayCalories;
+            return;
+        }
+        stepsMin = Math.min(stepsMin, daySteps);
+        stepsMax = Math.max(stepsMax, daySteps);
+        caloriesMin = Math.min(caloriesMin, dayCalories);
+        caloriesMax = Math.max(caloriesMax, dayCalories);
+    }
+    
+    private void recomputeExtremes() {
+        stepsMin = caloriesMin = Integer.MAX_VALUE;
+        stepsMax = caloriesMax = Integer.MIN_VALUE;
+        for (int i = 0; i < windowDays; i++) {
+            if (present[i]) {
+                stepsMin = Math.min(stepsMin, steps[i]);
+                stepsMax = Math.max(stepsMax, steps[i]);
+                caloriesMin = Math.min(caloriesMin, calories[i]);
+                caloriesMax = Math.max(caloriesMax, calories[i]);
+            }
+        }
+        extremesStale = false;
+    }
+    
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) windowDays);
+    }
+}
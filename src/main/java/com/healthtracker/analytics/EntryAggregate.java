@@ -0,0 +1,50 @@
+package com.healthtracker.analytics;
+
+/**
+ * Totals for a range of entries as produced by {@link EntryColumns#aggregate}. Means and
+ * population variances are derived from the sums, so aggregates for adjacent ranges can be
+ * combined by adding their components.
+ */
+public record EntryAggregate(
+        int count,
+        long stepsSum,
+        double stepsSumSquares,
+        int stepsMin,
+        int stepsMax,
+        long caloriesSum,
+        double caloriesSumSquares,
+        int caloriesMin,
+        int caloriesMax,
+        int anomalies) {
+    
+    public static final EntryAggregate EMPTY = new EntryAggregate(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    
+    public double stepsMean() {
+        return count == 0 ? 0 : (double) stepsSum / count;
+    }
+    
+    public double stepsVariance() {
+        return variance(stepsSum, stepsSumSquares);
+    }
+    
+    public double caloriesMean() {
+        return count == 0 ? 0 : (double) caloriesSum / count;
+    }
+    
+    public double caloriesVariance() {
+        return variance(caloriesSum, caloriesSumSquares);
+    }
+    
+    public WindowSnapshot toSnapshot() {
+        return new WindowSnapshot(
+                count,
+                stepsSum, stepsMean(), Math.sqrt(stepsVariance()), stepsMin, stepsMax,
+                caloriesSum, caloriesMean(), Math.sqrt(caloriesVariance()), caloriesMin, caloriesMax);
+    }
+    
+    private double variance(long sum, double sumSquares) {
+        if (count == 0) return 0;
+        double mean = (double) sum / count;
+        return Math.max(0, sumSquares / count - mean * mean);
+    }
+}
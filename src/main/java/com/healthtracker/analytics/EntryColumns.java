@@ -0,0 +1,125 @@
+package com.healthtracker.analytics;
+
+import com.healthtracker.model.HealthEntry;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Primitive column copy of a list of entries. Each boxed field is read exactly once, after
+ * which any index range can be aggregated in a single pass over {@code int[]} columns.
+ * Range lookups by date assume the entries were supplied in ascending date order.
+ */
+public final class EntryColumns {
+    
+    private final int size;
+    private final long[] epochDays;
+    private final int[] steps;
+    private final int[] calories;
+    private final boolean[] anomalies;
+    
+    private EntryColumns(int size) {
+        this(new long[size], new int[size], new int[size], new boolean[size]);
+    }
+    
+    EntryColumns(long[] epochDays, int[] steps, int[] calories, boolean[] anomalies) {
+        this.size = epochDays.length;
+        this.epochDays = epochDays;
+        this.steps = steps;
+        this.calories = calories;
+        this.anomalies = anomalies;
+    }
+    
+    public static EntryColumns of(Collection<HealthEntry> entries) {
+        EntryColumns columns = new EntryColumns(entries.size());
+        int i = 0;
+        for (HealthEntry entry : entries) {
+            columns.epochDays[i] = entry.getDate().toEpochDay();
+            columns.steps[i] = entry.getSteps() != null ? entry.getSteps() : 0;
+            columns.calories[i] = entry.getCalories() != null ? entry.getCalories() : 0;
+            columns.anomalies[i] = Boolean.TRUE.equals(entry.getIsAnomaly());
+            i++;
+        }
+        return columns;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public LocalDate date(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+    
+    public int steps(int index) {
+        return steps[index];
+    }
+    
+    public int calories(int index) {
+        return calories[index];
+    }
+    
+    public boolean isAnomaly(int index) {
+        return anomalies[index];
+    }
+    
+    /**
+     * Returns a copy with the rows in reverse order. Date lookups on the copy are undefined.
+     */
+    public EntryColumns reversed() {
+        EntryColumns reversed = new EntryColumns(size);
+        for (int i = 0; i < size; i++) {
+            int j = size - 1 - i;
+            reversed.epochDays[j] = epochDays[i];
+            reversed.steps[j] = steps[i];
+            reversed.calories[j] = calories[i];
+            reversed.anomalies[j] = anomalies[i];
+        }
+        return reversed;
+    }
+    
+    /**
+     * Returns the index of the first entry dated on or after {@code date}, or {@link #size()}
+     * if there is none.
+     */
+    public int indexOf(LocalDate date) {
+        int index = Arrays.binarySearch(epochDays, 0, size, date.toEpochDay());
+        if (index < 0) return -index - 1;
+        while (index > 0 && epochDays[index - 1] == epochDays[index]) index--;
+        return index;
+    }
+    
+    public EntryAggregate aggregate() {
+        return aggregate(0, size);
+    }
+    
+    public EntryAggregate aggregate(int from, int to) {
+        if (from >= to) return EntryAggregate.EMPTY;
+        
+        long stepsSum = 0, caloriesSum = 0;
+        double stepsSquares = 0, caloriesSquares = 0;
+        int stepsMin = steps[from], stepsMax = steps[from];
+        int caloriesMin = calories[from], caloriesMax = calories[from];
+        int anomalyCount = 0;
+        
+        for (int i = from; i < to; i++) {
+            int s = steps[i];
+            int c = calories[i];
+            stepsSum += s;
+            caloriesSum += c;
+            stepsSquares += (double) s * s;
+            caloriesSquares += (double) c * c;
+            if (s < stepsMin) stepsMin = s;
+            if (s > stepsMax) stepsMax = s;
+            if (c < caloriesMin) caloriesMin = c;
+            if (c > caloriesMax) caloriesMax = c;
+            if (anomalies[i]) anomalyCount++;
+        }
+        
+        return new EntryAggregate(to - from,
+                stepsSum, stepsSquares, stepsMin, stepsMax,
+                caloriesSum, caloriesSquares, caloriesMin, caloriesMax,
+                anomalyCount);
+    }
+}
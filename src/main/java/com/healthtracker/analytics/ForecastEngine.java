@@ -0,0 +1,32 @@
+package com.healthtracker.analytics;
+
+/**
+ * Forecasting models available to {@code forecast.engine}, each with the number of latest
+ * recorded days it keeps.
+ */
+public enum ForecastEngine {
+    LINEAR(30) {
+        @Override
+        public ForecastModel newModel() {
+            return new TrendWindow(getWindowRows());
+        }
+    },
+    WEEKDAY(56) {
+        @Override
+        public ForecastModel newModel() {
+            return new WeekdayProfile(getWindowRows());
+        }
+    };
+    
+    private final int windowRows;
+    
+    ForecastEngine(int windowRows) {
+        this.windowRows = windowRows;
+    }
+    
+    public int getWindowRows() {
+        return windowRows;
+    }
+    
+    public abstract ForecastModel newModel();
+}
@@ -0,0 +1,18 @@
+package com.healthtracker.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Per-user forecasting state that is updated one day at a time. Days may arrive in any
+ * order; recording a day that is already known replaces its values.
+ */
+public interface ForecastModel {
+    
+    void record(LocalDate date, int steps, int calories);
+    
+    /**
+     * Forecasts the {@code days} following the last recorded day, or returns null when
+     * nothing has been recorded.
+     */
+    ModelForecast forecast(int days);
+}
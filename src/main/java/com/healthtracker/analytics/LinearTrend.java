@@ -0,0 +1,25 @@
+package com.healthtracker.analytics;
+
+/**
+ * Least-squares line through {@code n} points, built from their sufficient statistics.
+ * With fewer than two points, or no spread in x, the slope and intercept are NaN.
+ */
+public record LinearTrend(long n, double intercept, double slope, double rSquare) {
+    
+    public static LinearTrend fit(long n, double sumX, double sumXX, double sumY, double sumXY, double sumYY) {
+        double sxx = n * sumXX - sumX * sumX;
+        double sxy = n * sumXY - sumX * sumY;
+        double syy = n * sumYY - sumY * sumY;
+        if (n < 2 || sxx == 0) {
+            return new LinearTrend(n, Double.NaN, Double.NaN, Double.NaN);
+        }
+        double slope = sxy / sxx;
+        double intercept = (sumY - slope * sumX) / n;
+        double rSquare = syy == 0 ? Double.NaN : (sxy * sxy) / (sxx * syy);
+        return new LinearTrend(n, intercept, slope, rSquare);
+    }
+    
+    public double predict(double x) {
+        return intercept + slope * x;
+    }
+}
@@ -0,0 +1,107 @@
+package com.healthtracker.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Sorted multiset of int values backing a sliding window, with the median and the median
+ * absolute deviation (MAD) read in O(log n). Values are located by binary search; for the
+ * short windows used here the shift on insert and remove is a single small array copy.
+ */
+public class MedianWindow {
+    
+    private final int[] values;
+    private int size;
+    
+    public MedianWindow(int capacity) {
+        this.values = new int[capacity];
+    }
+    
+    public void add(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) index = -index - 1;
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+    
+    public void remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            throw new IllegalStateException("Value not in window: " + value);
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public double median() {
+        if (size == 0) return 0;
+        int mid = size / 2;
+        return size % 2 == 1 ? values[mid] : (values[mid - 1] + (double) values[mid]) / 2;
+    }
+    
+    /**
+     * Median of |x - median| over the window. Deviations of the values below the midpoint
+     * grow towards the front of the array and those above it towards the back, so they form
+     * two sorted runs and the middle one is found by bisecting across both.
+     */
+    public double mad() {
+        if (size == 0) return 0;
+        double median = median();
+        int split = size / 2;
+        double low = kthDeviation(median, split, (size - 1) / 2);
+        return size % 2 == 1 ? low : (low + kthDeviation(median, split, size / 2)) / 2;
+    }
+    
+    /** Mean of |x - median|, the fallback spread when more than half the values are equal. */
+    public double meanDeviation() {
+        if (size == 0) return 0;
+        double median = median();
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += Math.abs(values[i] - median);
+        }
+        return total / size;
+    }
+    
+    public RobustBaseline baseline() {
+        double mad = mad();
+        return new RobustBaseline(size, median(), mad, mad > 0 ? 0 : meanDeviation());
+    }
+    
+    /** The k-th smallest (0-based) deviation, taking i of the first k + 1 from below the split. */
+    private double kthDeviation(double median, int split, int k) {
+        int take = k + 1;
+        int above = size - split;
+        int lo = Math.max(0, take - above);
+        int hi = Math.min(take, split);
+        while (true) {
+            int i = (lo + hi) >>> 1;
+            int j = take - i;
+            if (i < split && j > 0 && aboveDeviation(median, split, j - 1) > belowDeviation(median, split, i)) {
+                lo = i + 1;
+            } else if (i > 0 && j < above && belowDeviation(median, split, i - 1) > aboveDeviation(median, split, j)) {
+                hi = i - 1;
+            } else {
+                double fromBelow = i > 0 ? belowDeviation(median, split, i - 1) : Double.NEGATIVE_INFINITY;
+                double fromAbove = j > 0 ? aboveDeviation(median, split, j - 1) : Double.NEGATIVE_INFINITY;
+                return Math.max(fromBelow, fromAbove);
+            }
+        }
+    }
+    
+    private double belowDeviation(double median, int split, int i) {
+        return median - values[split - 1 - i];
+    }
+    
+    private double aboveDeviation(double median, int split, int j) {
+        return values[split + j] - median;
+    }
+}
@@ -0,0 +1,11 @@
+package com.healthtracker.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Forecast values for the days after {@code lastDate}; index 0 is the day after it.
+ * {@code fit} is the share of step variance the model explains over its window, or NaN when
+ * it cannot be measured.
+ */
+public record ModelForecast(LocalDate lastDate, double[] steps, double[] calories, double fit) {
+}
@@ -0,0 +1,104 @@
+package com.healthtracker.analytics;
+
+/**
+ * Least-squares sufficient statistics (n, Σx, Σx², Σy, Σxy, Σy²) for a fixed number of
+ * buckets, kept in parallel primitive arrays. Points are integer positions and values, so
+ * the sums are exact and adding then removing a point leaves no drift.
+ */
+public class RegressionSums {
+    
+    private final long[] n;
+    private final long[] sumX;
+    private final long[] sumXX;
+    private final long[] sumY;
+    private final long[] sumXY;
+    private final long[] sumYY;
+    
+    public RegressionSums(int buckets) {
+        n = new long[buckets];
+        sumX = new long[buckets];
+        sumXX = new long[buckets];
+        sumY = new long[buckets];
+        sumXY = new long[buckets];
+        sumYY = new long[buckets];
+    }
+    
+    public void add(int bucket, long x, long y) {
+        n[bucket]++;
+        sumX[bucket] += x;
+        sumXX[bucket] += x * x;
+        sumY[bucket] += y;
+        sumXY[bucket] += x * y;
+        sumYY[bucket] += y * y;
+    }
+    
+    public void remove(int bucket, long x, long y) {
+        n[bucket]--;
+        sumX[bucket] -= x;
+        sumXX[bucket] -= x * x;
+        sumY[bucket] -= y;
+        sumXY[bucket] -= x * y;
+        sumYY[bucket] -= y * y;
+    }
+    
+    /** Moves every point one position down, as when the oldest row leaves a window. */
+    public void shiftDown() {
+        for (int b = 0; b < n.length; b++) {
+            sumXX[b] += n[b] - 2 * sumX[b];
+            sumXY[b] -= sumY[b];
+            sumX[b] -= n[b];
+        }
+    }
+    
+    public void clear() {
+        for (int b = 0; b < n.length; b++) {
+            n[b] = sumX[b] = sumXX[b] = sumY[b] = sumXY[b] = sumYY[b] = 0;
+        }
+    }
+    
+    /** Fits one line through the points of every bucket. */
+    public LinearTrend fit() {
+        long count = 0;
+        double x = 0, xx = 0, y = 0, xy = 0, yy = 0;
+        for (int b = 0; b < n.length; b++) {
+            count += n[b];
+            x += sumX[b];
+            xx += sumXX[b];
+            y += sumY[b];
+            xy += sumXY[b];
+            yy += sumYY[b];
+        }
+        return LinearTrend.fit(count, x, xx, y, xy, yy);
+    }
+    
+    /**
+     * Mean residual of {@code bucket}'s points from {@code trend}, or 0 for an empty bucket.
+     */
+    public double meanResidual(int bucket, LinearTrend trend) {
+        if (n[bucket] == 0) return 0;
+        return (sumY[bucket] - trend.intercept() * n[bucket] - trend.slope() * sumX[bucket]) / n[bucket];
+    }
+    
+    /**
+     * Sum of squared residuals of {@code bucket}'s points from {@code trend} shifted by
+     * {@code offset}.
+     */
+    public double squaredResiduals(int bucket, LinearTrend trend, double offset) {
+        double a = trend.intercept() + offset;
+        double b = trend.slope();
+        return sumYY[bucket] - 2 * a * sumY[bucket] - 2 * b * sumXY[bucket]
+                + a * a * n[bucket] + 2 * a * b * sumX[bucket] + b * b * sumXX[bucket];
+    }
+    
+    /** Total sum of squares of every bucket's values around their common mean. */
+    public double totalSquares() {
+        long count = 0;
+        double y = 0, yy = 0;
+        for (int b = 0; b < n.length; b++) {
+            count += n[b];
+            y += sumY[b];
+            yy += sumYY[b];
+        }
+        return count == 0 ? 0 : yy - y * y / count;
+    }
+}
@@ -0,0 +1,18 @@
+package com.healthtracker.analytics;
+
+/**
+ * Median and spread of a window of days, for scoring one more day against it. The score is
+ * the modified z-score of Iglewicz and Hoaglin: the distance from the median in units of the
+ * MAD scaled to match a normal standard deviation, or of the mean absolute deviation when
+ * more than half the window shares one value. A window with no spread at all scores zero.
+ */
+public record RobustBaseline(int size, double median, double mad, double meanDeviation) {
+    
+    private static final double MAD_SCALE = 1.4826;
+    private static final double MEAN_DEVIATION_SCALE = 1.2533;
+    
+    public double score(int value) {
+        double spread = mad > 0 ? MAD_SCALE * mad : MEAN_DEVIATION_SCALE * meanDeviation;
+        return spread > 0 ? (value - median) / spread : 0;
+    }
+}
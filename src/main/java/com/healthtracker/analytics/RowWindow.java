@@ -0,0 +1,123 @@
+package com.healthtracker.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * The latest {@code capacity} recorded days in date order, held in preallocated arrays, for
+ * models whose statistics are indexed by row position (0 for the oldest row). Appending a new
+ * latest day and updating a day already in the window reach subclasses as constant-time
+ * {@link #added}/{@link #removed}/{@link #shiftedDown} calls; a backfill inside the window
+ * shifts the positions after it, so the statistics are rebuilt from the rows instead.
+ */
+public abstract class RowWindow implements ForecastModel {
+    
+    private final int capacity;
+    private final long[] epochDays;
+    private final int[] steps;
+    private final int[] calories;
+    private int size;
+    
+    protected RowWindow(int capacity) {
+        this.capacity = capacity;
+        this.epochDays = new long[capacity];
+        this.steps = new int[capacity];
+        this.calories = new int[capacity];
+    }
+    
+    @Override
+    public synchronized void record(LocalDate date, int daySteps, int dayCalories) {
+        long day = date.toEpochDay();
+        if (size == 0 || day > epochDays[size - 1]) {
+            append(day, daySteps, dayCalories);
+            return;
+        }
+        
+        int index = indexOf(day);
+        if (index < size && epochDays[index] == day) {
+            removed(index, day, steps[index], calories[index]);
+            steps[index] = daySteps;
+            calories[index] = dayCalories;
+            added(index, day, daySteps, dayCalories);
+        } else if (index > 0 || size < capacity) {
+            insert(index, day, daySteps, dayCalories);
+        }
+        // Otherwise the day is older than every row of a full window and cannot affect it.
+    }
+    
+    @Override
+    public synchronized ModelForecast forecast(int days) {
+        if (size == 0) return null;
+        double[] stepsForecast = new double[days];
+        double[] caloriesForecast = new double[days];
+        double fit = forecast(size, epochDays[size - 1], stepsForecast, caloriesForecast);
+        return new ModelForecast(LocalDate.ofEpochDay(epochDays[size - 1]), stepsForecast, caloriesForecast, fit);
+    }
+    
+    /**
+     * Fills the forecasts for the days after {@code lastDay}, the first of which sits at
+     * position {@code size}, and returns the model's fit.
+     */
+    protected abstract double forecast(int size, long lastDay, double[] steps, double[] calories);
+    
+    protected abstract void added(int x, long day, int steps, int calories);
+    
+    protected abstract void removed(int x, long day, int steps, int calories);
+    
+    /** Every remaining row moved one position down after the oldest was removed. */
+    protected abstract void shiftedDown();
+    
+    protected abstract void cleared();
+    
+    private void append(long day, int daySteps, int dayCalories) {
+        if (size == capacity) {
+            removed(0, epochDays[0], steps[0], calories[0]);
+            System.arraycopy(epochDays, 1, epochDays, 0, size - 1);
+            System.arraycopy(steps, 1, steps, 0, size - 1);
+            System.arraycopy(calories, 1, calories, 0, size - 1);
+            size--;
+            shiftedDown();
+        }
+        epochDays[size] = day;
+        steps[size] = daySteps;
+        calories[size] = dayCalories;
+        added(size, day, daySteps, dayCalories);
+        size++;
+    }
+    
+    private void insert(int index, long day, int daySteps, int dayCalories) {
+        if (size == capacity) {
+            // The new row displaces the oldest one, so it lands one position earlier.
+            System.arraycopy(epochDays, 1, epochDays, 0, index - 1);
+            System.arraycopy(steps, 1, steps, 0, index - 1);
+            System.arraycopy(calories, 1, calories, 0, index - 1);
+            index--;
+        } else {
+            System.arraycopy(epochDays, index, epochDays, index + 1, size - index);
+            System.arraycopy(steps, index, steps, index + 1, size - index);
+            System.arraycopy(calories, index, calories, index + 1, size - index);
+            size++;
+        }
+        epochDays[index] = day;
+        steps[index] = daySteps;
+        calories[index] = dayCalories;
+        
+        cleared();
+        for (int i = 0; i < size; i++) {
+            added(i, epochDays[i], steps[i], calories[i]);
+        }
+    }
+    
+    private int indexOf(long day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,65 @@
+package com.healthtracker.analytics;
+
+/**
+ * Welford mean/variance accumulator that supports removing values as well as adding them,
+ * so it can back a sliding window without rescanning.
+ */
+public class RunningStats {
+    
+    private long count;
+    private double mean;
+    private double m2;
+    private double sum;
+    
+    public void add(double value) {
+        count++;
+        sum += value;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+    
+    public void remove(double value) {
+        if (count <= 1) {
+            clear();
+            return;
+        }
+        double previousMean = mean;
+        count--;
+        sum -= value;
+        mean = (previousMean * (count + 1) - value) / count;
+        m2 = Math.max(0, m2 - (value - previousMean) * (value - mean));
+    }
+    
+    public void replace(double oldValue, double newValue) {
+        remove(oldValue);
+        add(newValue);
+    }
+    
+    public void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        sum = 0;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public double getSum() {
+        return sum;
+    }
+    
+    public double getMean() {
+        return count == 0 ? 0 : mean;
+    }
+    
+    public double getVariance() {
+        return count == 0 ? 0 : m2 / count;
+    }
+    
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+}
@@ -0,0 +1,76 @@
+package com.healthtracker.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Computes activity streaks from a user's active dates. A streak is a run of consecutive
+ * active days; the current streak is the run ending at the last active date, and it only
+ * counts while that date is today or yesterday.
+ */
+public final class StreakCalculator {
+    
+    public record Streaks(int current, int longest, LocalDate lastActiveDate) {
+        public static final Streaks NONE = new Streaks(0, 0, null);
+    }
+    
+    private StreakCalculator() {
+    }
+    
+    /**
+     * One linear pass over {@code activeDates}, which must be sorted ascending. Duplicates
+     * are tolerated.
+     */
+    public static Streaks compute(List<LocalDate> activeDates, LocalDate today) {
+        if (activeDates.isEmpty()) {
+            return Streaks.NONE;
+        }
+        
+        int run = 0;
+        int longest = 0;
+        long previous = Long.MIN_VALUE;
+        for (LocalDate date : activeDates) {
+            long day = date.toEpochDay();
+            if (day == previous) continue;
+            run = day == previous + 1 ? run + 1 : 1;
+            longest = Math.max(longest, run);
+            previous = day;
+        }
+        
+        LocalDate last = LocalDate.ofEpochDay(previous);
+        return new Streaks(isAlive(last, today) ? run : 0, longest, last);
+    }
+    
+    /**
+     * Folds one newly active date into previously computed streaks. Returns {@code null} when
+     * the result depends on history that {@code previous} no longer carries: a date older than
+     * the last active date, or one that continues a run that had already lapsed. Callers then
+     * fall back to {@link #compute}.
+     */
+    public static Streaks extend(Streaks previous, LocalDate date, LocalDate today) {
+        LocalDate last = previous.lastActiveDate();
+        if (last == null) {
+            int current = isAlive(date, today) ? 1 : 0;
+            return new Streaks(current, Math.max(previous.longest(), 1), date);
+        }
+        if (date.isBefore(last)) {
+            return null;
+        }
+        if (date.equals(last)) {
+            return previous;
+        }
+        
+        int run = 1;
+        if (date.equals(last.plusDays(1))) {
+            if (previous.current() == 0) {
+                return null;
+            }
+            run = previous.current() + 1;
+        }
+        return new Streaks(isAlive(date, today) ? run : 0, Math.max(previous.longest(), run), date);
+    }
+    
+    private static boolean isAlive(LocalDate last, LocalDate today) {
+        return !last.isBefore(today.minusDays(1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.healthtracker.analytics;
+
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The values suggestion rules are evaluated against, by the names in {@link #FEATURES}.
+ * Goal ratios are averages over the daily goal. {@code recentDecline} is the share of
+ * day-over-day step drops across the first 7 rows (0 with fewer than 3), and
+ * {@code recentAnomalies} counts anomalous days in the first 14 rows.
+ */
+public record SuggestionFeatures(
+        int days,
+        double avgSteps,
+        double avgCalories,
+        double stepsGoalRatio,
+        double caloriesGoalRatio,
+        double recentDecline,
+        int recentAnomalies) {
+    
+    public static final Map<String, ToDoubleFunction<SuggestionFeatures>> FEATURES = Map.of(
+            "days", SuggestionFeatures::days,
+            "avgSteps", SuggestionFeatures::avgSteps,
+            "avgCalories", SuggestionFeatures::avgCalories,
+            "stepsGoalRatio", SuggestionFeatures::stepsGoalRatio,
+            "caloriesGoalRatio", SuggestionFeatures::caloriesGoalRatio,
+            "recentDecline", SuggestionFeatures::recentDecline,
+            "recentAnomalies", SuggestionFeatures::recentAnomalies);
+    
+    /**
+     * {@code stats} covers the whole period being advised on; the trend and anomaly features
+     * look at the first 7 and 14 rows of {@code columns}.
+     */
+    public static SuggestionFeatures of(EntryColumns columns, WindowSnapshot stats, int stepsGoal, int caloriesGoal) {
+        int trendRows = Math.min(7, columns.size());
+        int decreasing = 0;
+        for (int i = 1; i < trendRows; i++) {
+            if (columns.steps(i) < columns.steps(i - 1)) decreasing++;
+        }
+        int anomalies = 0;
+        for (int i = 0, n = Math.min(14, columns.size()); i < n; i++) {
+            if (columns.isAnomaly(i)) anomalies++;
+        }
+        
+        return new SuggestionFeatures(
+                columns.size(),
+                stats.stepsMean(),
+                stats.caloriesMean(),
+                stats.stepsMean() / stepsGoal,
+                stats.caloriesMean() / caloriesGoal,
+                trendRows < 3 ? 0 : (double) decreasing / trendRows,
+                anomalies);
+    }
+}
@@ -0,0 +1,136 @@
+package com.healthtracker.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Suggestion rules compiled from their {@link Definition}s. Rules are tried in order and each
+ * matching rule contributes its text, with these refinements:
+ * <ul>
+ *   <li>{@code when} is one or more {@code <feature> <op> <number>} conditions joined by
+ *       {@code and}, where {@code op} is one of {@code < <= > >= ==}; the special condition
+ *       {@code otherwise} matches only if no earlier rule did.</li>
+ *   <li>At most one rule per {@code group} matches, the first in order.</li>
+ *   <li>A matching {@code stop} rule ends evaluation.</li>
+ * </ul>
+ * Conditions are bound to feature accessors once, so evaluation is a few comparisons per rule.
+ */
+public class SuggestionRules {
+    
+    private static final Pattern CONDITION = Pattern.compile("(\\w+)\\s*(<=|>=|==|<|>)\\s*(-?\\d+(?:\\.\\d+)?)");
+    
+    public record Definition(String group, String when, String text, boolean stop) {
+    }
+    
+    private enum Operator {
+        LT, LE, GT, GE, EQ;
+        
+        boolean test(double value, double threshold) {
+            switch (this) {
+                case LT: return value < threshold;
+                case LE: return value <= threshold;
+                case GT: return value > threshold;
+                case GE: return value >= threshold;
+                default: return value == threshold;
+            }
+        }
+        
+        static Operator of(String symbol) {
+            switch (symbol) {
+                case "<": return LT;
+                case "<=": return LE;
+                case ">": return GT;
+                case ">=": return GE;
+                default: return EQ;
+            }
+        }
+    }
+    
+    private record Condition(ToDoubleFunction<SuggestionFeatures> feature, Operator operator, double threshold) {
+    }
+    
+    private record Rule(Condition[] conditions, boolean otherwise, int group, boolean stop, String text) {
+        
+        boolean matches(SuggestionFeatures features) {
+            for (Condition condition : conditions) {
+                if (!condition.operator().test(condition.feature().applyAsDouble(features), condition.threshold())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    private final Rule[] rules;
+    
+    private SuggestionRules(Rule[] rules) {
+        this.rules = rules;
+    }
+    
+    public static SuggestionRules compile(List<Definition> definitions) {
+        Map<String, Integer> groups = new HashMap<>();
+        Rule[] rules = new Rule[definitions.size()];
+        for (int i = 0; i < rules.length; i++) {
+            Definition definition = definitions.get(i);
+            if (definition.when() == null || definition.text() == null) {
+                throw new RuntimeException("Suggestion rule " + (i + 1) + " needs 'when' and 'text'");
+            }
+            int group = -1;
+            if (definition.group() != null) {
+                group = groups.computeIfAbsent(definition.group(), name -> groups.size());
+                if (group >= Long.SIZE) {
+                    throw new RuntimeException("At most " + Long.SIZE + " suggestion rule groups are supported");
+                }
+            }
+            boolean otherwise = definition.when().trim().equals("otherwise");
+            Condition[] conditions = otherwise ? new Condition[0] : parse(definition.when(), i + 1);
+            rules[i] = new Rule(conditions, otherwise, group, definition.stop(), definition.text());
+        }
+        return new SuggestionRules(rules);
+    }
+    
+    public List<String> evaluate(SuggestionFeatures features) {
+        List<String> suggestions = new ArrayList<>(4);
+        long matchedGroups = 0;
+        for (Rule rule : rules) {
+            if (rule.otherwise()) {
+                if (suggestions.isEmpty()) suggestions.add(rule.text());
+                continue;
+            }
+            if (rule.group() >= 0 && (matchedGroups & (1L << rule.group())) != 0) continue;
+            if (!rule.matches(features)) continue;
+            
+            suggestions.add(rule.text());
+            if (rule.group() >= 0) matchedGroups |= 1L << rule.group();
+            if (rule.stop()) break;
+        }
+        return suggestions;
+    }
+    
+    public int size() {
+        return rules.length;
+    }
+    
+    private static Condition[] parse(String when, int ruleNumber) {
+        String[] parts = when.trim().split("\\s+and\\s+");
+        Condition[] conditions = new Condition[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            Matcher matcher = CONDITION.matcher(parts[i].trim());
+            if (!matcher.matches()) {
+                throw new RuntimeException("Suggestion rule " + ruleNumber + ": cannot parse condition '" + parts[i] + "'");
+            }
+            ToDoubleFunction<SuggestionFeatures> feature = SuggestionFeatures.FEATURES.get(matcher.group(1));
+            if (feature == null) {
+                throw new RuntimeException("Suggestion rule " + ruleNumber + ": unknown feature '" + matcher.group(1)
+                        + "', expected one of " + SuggestionFeatures.FEATURES.keySet());
+            }
+            conditions[i] = new Condition(feature, Operator.of(matcher.group(2)), Double.parseDouble(matcher.group(3)));
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,50 @@
+package com.healthtracker.analytics;
+
+/**
+ * Straight-line forecast of steps and calories against row position over the latest
+ * {@code capacity} recorded days, from regression sums kept up to date by {@link RowWindow}.
+ */
+public class TrendWindow extends RowWindow {
+    
+    private final RegressionSums stepsSums = new RegressionSums(1);
+    private final RegressionSums caloriesSums = new RegressionSums(1);
+    
+    public TrendWindow(int capacity) {
+        super(capacity);
+    }
+    
+    @Override
+    protected double forecast(int size, long lastDay, double[] steps, double[] calories) {
+        LinearTrend stepsTrend = stepsSums.fit();
+        LinearTrend caloriesTrend = caloriesSums.fit();
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = stepsTrend.predict(size + i);
+            calories[i] = caloriesTrend.predict(size + i);
+        }
+        return stepsTrend.rSquare();
+    }
+    
+    @Override
+    protected void added(int x, long day, int steps, int calories) {
+        stepsSums.add(0, x, steps);
+        caloriesSums.add(0, x, calories);
+    }
+    
+    @Override
+    protected void removed(int x, long day, int steps, int calories) {
+        stepsSums.remove(0, x, steps);
+        caloriesSums.remove(0, x, calories);
+    }
+    
+    @Override
+    protected void shiftedDown() {
+        stepsSums.shiftDown();
+        caloriesSums.shiftDown();
+    }
+    
+    @Override
+    protected void cleared() {
+        stepsSums.clear();
+        caloriesSums.clear();
+    }
+}
@@ -0,0 +1,74 @@
+package com.healthtracker.analytics;
+
+/**
+ * Trend plus weekday profile: a straight line against row position over the latest
+ * {@code capacity} recorded days, shifted for each day of the week by that weekday's mean
+ * residual from the line. Regression sums are kept per weekday, so the overall fit is their
+ * total and each weekday's offset and error follow in closed form without revisiting rows.
+ */
+public class WeekdayProfile extends RowWindow {
+    
+    private static final int WEEKDAYS = 7;
+    
+    private final RegressionSums stepsSums = new RegressionSums(WEEKDAYS);
+    private final RegressionSums caloriesSums = new RegressionSums(WEEKDAYS);
+    private final double[] stepsOffsets = new double[WEEKDAYS];
+    private final double[] caloriesOffsets = new double[WEEKDAYS];
+    
+    public WeekdayProfile(int capacity) {
+        super(capacity);
+    }
+    
+    @Override
+    protected double forecast(int size, long lastDay, double[] steps, double[] calories) {
+        LinearTrend stepsTrend = stepsSums.fit();
+        LinearTrend caloriesTrend = caloriesSums.fit();
+        if (Double.isNaN(stepsTrend.slope())) {
+            return Double.NaN;
+        }
+        
+        double stepsErrors = 0;
+        for (int d = 0; d < WEEKDAYS; d++) {
+            stepsOffsets[d] = stepsSums.meanResidual(d, stepsTrend);
+            caloriesOffsets[d] = caloriesSums.meanResidual(d, caloriesTrend);
+            stepsErrors += stepsSums.squaredResiduals(d, stepsTrend, stepsOffsets[d]);
+        }
+        for (int i = 0; i < steps.length; i++) {
+            int weekday = weekday(lastDay + 1 + i);
+            steps[i] = stepsTrend.predict(size + i) + stepsOffsets[weekday];
+            calories[i] = caloriesTrend.predict(size + i) + caloriesOffsets[weekday];
+        }
+        
+        double total = stepsSums.totalSquares();
+        return total == 0 ? Double.NaN : 1 - stepsErrors / total;
+    }
+    
+    @Override
+    protected void added(int x, long day, int steps, int calories) {
+        stepsSums.add(weekday(day), x, steps);
+        caloriesSums.add(weekday(day), x, calories);
+    }
+    
+    @Override
+    protected void removed(int x, long day, int steps, int calories) {
+        stepsSums.remove(weekday(day), x, steps);
+        caloriesSums.remove(weekday(day), x, calories);
+    }
+    
+    @Override
+    protected void shiftedDown() {
+        stepsSums.shiftDown();
+        caloriesSums.shiftDown();
+    }
+    
+    @Override
+    protected void cleared() {
+        stepsSums.clear();
+        caloriesSums.clear();
+    }
+    
+    private static int weekday(long epochDay) {
+        // Epoch day 0 was a Thursday; 0 is Monday.
+        return (int) Math.floorMod(epochDay + 3, 7L);
+    }
+}
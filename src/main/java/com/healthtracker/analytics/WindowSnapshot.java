@@ -0,0 +1,32 @@
+package com.healthtracker.analytics;
+
+import com.healthtracker.model.ActivityRollup;
+import com.healthtracker.model.HealthEntry;
+
+import java.util.Collection;
+
+public record WindowSnapshot(
+        int count,
+        long stepsSum,
+        double stepsMean,
+        double stepsStdDev,
+        int stepsMin,
+        int stepsMax,
+        long caloriesSum,
+        double caloriesMean,
+        double caloriesStdDev,
+        int caloriesMin,
+        int caloriesMax) {
+    
+    public static WindowSnapshot of(Collection<HealthEntry> entries) {
+        return EntryColumns.of(entries).aggregate().toSnapshot();
+    }
+    
+    public static WindowSnapshot of(ActivityRollup rollup) {
+        return new EntryAggregate(
+                rollup.getActiveDays(),
+                rollup.getTotalSteps(), rollup.getStepsSquares(), rollup.getMinSteps(), rollup.getMaxSteps(),
+                rollup.getTotalCalories(), rollup.getCaloriesSquares(), rollup.getMinCalories(), rollup.getMaxCalories(),
+                rollup.getAnomalies()).toSnapshot();
+    }
+}
@@ -2,6 +2,7 @@ package com.healthtracker.config;
 
 import com.healthtracker.model.*;
 import com.healthtracker.repository.*;
+import com.healthtracker.service.RollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,6 +34,9 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private RollupService rollupService;
+    
     @Override
     public void run(String... args) {
         if (userRepository.count() == 0) {
@@ -125,6 +129,10 @@ public class DataInitializer implements CommandLineRunner {
             healthEntryRepository.save(entry3);
         }
         
+        rollupService.backfill(user1);
+        rollupService.backfill(user2);
+        rollupService.backfill(user3);
+        
         String[] mealNames = {"Breakfast", "Lunch", "Dinner", "Snack"};
         int[] mealCalories = {400, 600, 700, 200};
         
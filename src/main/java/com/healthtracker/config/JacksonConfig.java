@@ -0,0 +1,19 @@
+package com.healthtracker.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers Blackbird with Spring Boot's {@code ObjectMapper}. It replaces reflective accessor
+ * calls on the response records and entities with generated lambdas.
+ */
+@Configuration
+public class JacksonConfig {
+    
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
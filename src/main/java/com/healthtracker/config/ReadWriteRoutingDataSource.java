@@ -0,0 +1,28 @@
+package com.healthtracker.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the reader pool and everything else,
+ * including work outside a transaction, to the writer.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    
+    private static final String WRITER = "writer";
+    private static final String READER = "reader";
+    
+    public ReadWriteRoutingDataSource(DataSource writer, DataSource reader) {
+        setTargetDataSources(Map.of(WRITER, writer, READER, reader));
+        setDefaultTargetDataSource(writer);
+        afterPropertiesSet();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? READER : WRITER;
+    }
+}
@@ -0,0 +1,116 @@
+package com.healthtracker.config;
+
+import com.healthtracker.model.User;
+import com.healthtracker.repository.UserRepository;
+import com.healthtracker.service.RollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings databases created before the (user_id, date) constraints up to date. Hibernate's
+ * schema update cannot add a unique index while duplicate day rows exist, so duplicates are
+ * merged first (highest steps value, summed calories) and the indexes are created afterwards.
+ * Rollups missing for existing entries are then backfilled, since reports no longer create
+ * them on read. Every step is idempotent, so this is safe to run on each startup.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SchemaMigration implements CommandLineRunner {
+    
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigration.class);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private RollupService rollupService;
+    
+    @Override
+    public void run(String... args) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            mergeDuplicateEntries();
+            
+            if (!hasUniqueIndex("health_entries", "user_id", "date")) {
+                jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_health_entries_user_date ON health_entries (user_id, date)");
+            }
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_meals_user_date ON meals (user_id, date)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_friends_user ON friends (user_id)");
+        });
+        
+        // Outside the schema transaction: rollup ids come from a sequence committed on a
+        // second connection, which would wait on the writer lock that transaction holds.
+        backfillRollups();
+    }
+    
+    private void backfillRollups() {
+        int created = 0;
+        for (User user : userRepository.findAll()) {
+            created += rollupService.backfill(user);
+        }
+        if (created > 0) {
+            log.info("Backfilled {} activity rollups", created);
+        }
+    }
+    
+    private void mergeDuplicateEntries() {
+        Integer duplicates = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM health_entries GROUP BY user_id, date HAVING COUNT(*) > 1) d",
+                Integer.class);
+        if (duplicates == null || duplicates == 0) {
+            return;
+        }
+        
+        jdbcTemplate.update(
+                "UPDATE health_entries SET " +
+                "steps = (SELECT MAX(d.steps) FROM health_entries d WHERE d.user_id = health_entries.user_id " +
+                "AND d.date = health_entries.date), " +
+                "calories = (SELECT SUM(d.calories) FROM health_entries d WHERE d.user_id = health_entries.user_id " +
+                "AND d.date = health_entries.date) " +
+                "WHERE id IN (SELECT MIN(id) FROM health_entries GROUP BY user_id, date HAVING COUNT(*) > 1)");
+        jdbcTemplate.update(
+                "DELETE FROM health_entries WHERE id NOT IN (SELECT MIN(id) FROM health_entries GROUP BY user_id, date)");
+        
+        log.info("Merged duplicate health entries for {} user days", duplicates);
+    }
+    
+    private boolean hasUniqueIndex(String table, String... columns) {
+        Boolean found = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Map<String, Set<String>> columnsByIndex = new HashMap<>();
+            DatabaseMetaData metaData = connection.getMetaData();
+            String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+            try (ResultSet rs = metaData.getIndexInfo(null, null, tableName, true, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        columnsByIndex.computeIfAbsent(index, k -> new HashSet<>()).add(column.toLowerCase());
+                    }
+                }
+            }
+            return columnsByIndex.containsValue(Set.of(columns));
+        });
+        return Boolean.TRUE.equals(found);
+    }
+}
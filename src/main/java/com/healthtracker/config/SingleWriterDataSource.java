@@ -0,0 +1,108 @@
+package com.healthtracker.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets one thread at a time write to SQLite. The first writer connection a thread opens takes
+ * the single permit and releases it when closed; further connections opened by the same
+ * thread while it holds the permit skip the gate. Hibernate's table-based id generator relies
+ * on that, since it commits on a second connection in the middle of the outer transaction.
+ * The target pool therefore needs two connections.
+ * <p>
+ * At most {@code maxWaiting} threads may queue for the permit; beyond that a connection request
+ * fails immediately, so a burst of writes cannot park every request thread here until they
+ * time out and starve the read endpoints.
+ */
+public class SingleWriterDataSource extends DelegatingDataSource {
+    
+    private static final ThreadLocal<int[]> HELD = ThreadLocal.withInitial(() -> new int[1]);
+    
+    private final Semaphore permit = new Semaphore(1, true);
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final long timeoutMillis;
+    private final int maxWaiting;
+    
+    public SingleWriterDataSource(DataSource target, long timeoutMillis, int maxWaiting) {
+        super(target);
+        this.timeoutMillis = timeoutMillis;
+        this.maxWaiting = maxWaiting;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        int[] held = HELD.get();
+        if (held[0] == 0) {
+            if (waiting.incrementAndGet() > maxWaiting) {
+                waiting.decrementAndGet();
+                throw new SQLException("Too many requests waiting for the SQLite writer connection");
+            }
+            try {
+                if (!permit.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SQLException("Timed out waiting for the SQLite writer connection");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the SQLite writer connection", e);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        
+        held[0]++;
+        try {
+            return track(super.getConnection(), held);
+        } catch (SQLException | RuntimeException e) {
+            release(held);
+            throw e;
+        }
+    }
+    
+    /**
+     * Threads currently queued for the permit.
+     */
+    int waiting() {
+        return waiting.get();
+    }
+    
+    private Connection track(Connection connection, int[] held) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        } finally {
+                            release(held);
+                        }
+                    }
+                    if (method.getName().equals("isClosed") && closed.get()) {
+                        return true;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+    
+    private void release(int[] held) {
+        if (--held[0] == 0) {
+            permit.release();
+        }
+    }
+}
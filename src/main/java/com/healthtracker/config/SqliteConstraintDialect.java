@@ -0,0 +1,29 @@
+package com.healthtracker.config;
+
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.spi.SQLExceptionConversionDelegate;
+import org.hibernate.internal.util.JdbcExceptionHelper;
+
+/**
+ * The community SQLite dialect, but reporting {@code SQLITE_CONSTRAINT} errors as constraint
+ * violations. The stock dialect leaves them to the SQLState check, and the SQLite driver sets
+ * no SQLState, so a duplicate key surfaced as a generic JDBC error rather than the
+ * {@code DataIntegrityViolationException} callers catch to resolve insert races.
+ */
+public class SqliteConstraintDialect extends SQLiteDialect {
+    
+    private static final int SQLITE_CONSTRAINT = 19;
+    
+    @Override
+    public SQLExceptionConversionDelegate buildSQLExceptionConversionDelegate() {
+        SQLExceptionConversionDelegate delegate = super.buildSQLExceptionConversionDelegate();
+        return (sqlException, message, sql) -> {
+            if ((JdbcExceptionHelper.extractErrorCode(sqlException) & 0xFF) == SQLITE_CONSTRAINT) {
+                return new ConstraintViolationException(message, sqlException, sql,
+                        getViolatedConstraintNameExtractor().extractConstraintName(sqlException));
+            }
+            return delegate.convert(sqlException, message, sql);
+        };
+    }
+}
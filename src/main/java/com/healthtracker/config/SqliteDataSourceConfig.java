@@ -0,0 +1,92 @@
+package com.healthtracker.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * SQLite connection setup, active whenever {@code spring.datasource.url} points at SQLite.
+ * Every connection opens in WAL mode with the {@code sqlite.*} pragmas, so readers no longer
+ * block behind the writer. Writes go through a two-connection pool gated to one writer at a
+ * time by {@link SingleWriterDataSource}, which also caps how many writers may queue
+ * ({@code sqlite.writer-max-waiting}); read-only transactions use a separate
+ * {@code query_only} pool of {@code sqlite.read-pool-size} connections. The lazy proxy defers
+ * picking a pool until the first statement, when the transaction's read-only flag is known.
+ */
+@Configuration
+@ConditionalOnExpression("'${spring.datasource.url:}'.startsWith('jdbc:sqlite:')")
+public class SqliteDataSourceConfig {
+    
+    @Value("${sqlite.journal-mode:WAL}")
+    private String journalMode;
+    
+    @Value("${sqlite.synchronous:NORMAL}")
+    private String synchronous;
+    
+    @Value("${sqlite.busy-timeout-ms:5000}")
+    private int busyTimeoutMs;
+    
+    @Value("${sqlite.cache-size-kib:65536}")
+    private int cacheSizeKib;
+    
+    @Value("${sqlite.mmap-size-bytes:268435456}")
+    private long mmapSizeBytes;
+    
+    @Value("${sqlite.read-pool-size:4}")
+    private int readPoolSize;
+    
+    @Value("${sqlite.writer-timeout-ms:30000}")
+    private long writerTimeoutMs;
+    
+    @Value("${sqlite.writer-max-waiting:64}")
+    private int writerMaxWaiting;
+    
+    @Bean(destroyMethod = "close")
+    @Qualifier("sqliteWriter")
+    public HikariDataSource sqliteWriterPool(DataSourceProperties properties) {
+        // One connection for the transaction, one for the id generator's nested commits.
+        return pool(properties, "sqlite-writer", 2, false);
+    }
+    
+    @Bean(destroyMethod = "close")
+    @Qualifier("sqliteReader")
+    public HikariDataSource sqliteReaderPool(DataSourceProperties properties) {
+        return pool(properties, "sqlite-reader", readPoolSize, true);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("sqliteWriter") HikariDataSource writer,
+                                 @Qualifier("sqliteReader") HikariDataSource reader) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(new SingleWriterDataSource(writer, writerTimeoutMs, writerMaxWaiting), reader));
+    }
+    
+    private HikariDataSource pool(DataSourceProperties properties, String name, int size, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(properties.determineUrl());
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(1);
+        config.setAutoCommit(false);
+        config.addDataSourceProperty("journal_mode", journalMode);
+        config.addDataSourceProperty("synchronous", synchronous);
+        config.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeoutMs));
+        config.addDataSourceProperty("cache_size", String.valueOf(-cacheSizeKib));
+        config.addDataSourceProperty("mmap_size", String.valueOf(mmapSizeBytes));
+        if (readOnly) {
+            config.setConnectionInitSql("PRAGMA query_only = 1");
+        }
+        return new HikariDataSource(config);
+    }
+}
@@ -1,15 +1,33 @@
 package com.healthtracker.controller;
 
+import com.healthtracker.dto.BatchRequest;
+import com.healthtracker.dto.BatchResponse;
 import com.healthtracker.dto.EntryRequest;
+import com.healthtracker.dto.FriendActivity;
+import com.healthtracker.dto.LeaderboardEntry;
 import com.healthtracker.dto.MealRequest;
+import com.healthtracker.dto.MonthlyReport;
+import com.healthtracker.dto.PredictionResponse;
+import com.healthtracker.dto.ReportEntries;
+import com.healthtracker.dto.SummaryResponse;
+import com.healthtracker.dto.YearlyReport;
 import com.healthtracker.model.*;
 import com.healthtracker.service.HealthService;
+import com.healthtracker.service.IngestService;
+import com.healthtracker.service.VersionStamps;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 
@@ -18,29 +36,46 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class HealthController {
     
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
     @Autowired
     private HealthService healthService;
     
+    @Autowired(required = false)
+    private IngestService ingestService;
+    
+    @Autowired
+    private VersionStamps versionStamps;
+    
+    @Value("${http.cache.past-month-max-age:7d}")
+    private Duration pastMonthMaxAge;
+    
     @GetMapping("/entries")
-    public ResponseEntity<?> getEntries(@RequestParam(defaultValue = "14") int days, Authentication auth) {
+    public ResponseEntity<?> getEntries(@RequestParam(defaultValue = "14") int days, Authentication auth, WebRequest webRequest) {
         try {
             String username = auth.getName();
+            if (notModified(webRequest, versionStamps.userTag(username))) {
+                return notModified(REVALIDATE);
+            }
             List<HealthEntry> entries = healthService.getEntries(username, days);
-            return ResponseEntity.ok(entries);
+            return cached(REVALIDATE, entries);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createError(e.getMessage()));
         }
     }
     
     @GetMapping("/entry/{date}")
-    public ResponseEntity<?> getEntry(@PathVariable String date, Authentication auth) {
+    public ResponseEntity<?> getEntry(@PathVariable String date, Authentication auth, WebRequest webRequest) {
         try {
             String username = auth.getName();
+            if (notModified(webRequest, versionStamps.userTag(username))) {
+                return notModified(REVALIDATE);
+            }
             HealthEntry entry = healthService.getEntry(username, date);
             if (entry == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(entry);
+            return cached(REVALIDATE, entry);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createError(e.getMessage()));
         }
@@ -53,6 +88,9 @@ public class HealthController {
             if (request.getDate() == null) {
                 request.setDate(LocalDate.now());
             }
+            if (ingestService != null) {
+                return ResponseEntity.accepted().body(ingestService.submitEntry(username, request));
+            }
             HealthEntry entry = healthService.saveEntry(username, request);
             return ResponseEntity.ok(entry);
         } catch (Exception e) {
@@ -67,6 +105,9 @@ public class HealthController {
             if (request.getDate() == null) {
                 request.setDate(LocalDate.now());
             }
+            if (ingestService != null) {
+                return ResponseEntity.accepted().body(ingestService.submitMeal(username, request));
+            }
             Meal meal = healthService.saveMeal(username, request);
             return ResponseEntity.ok(meal);
         } catch (Exception e) {
@@ -74,34 +115,68 @@ public class HealthController {
         }
     }
     
+    @PostMapping("/entries/batch")
+    public ResponseEntity<?> saveBatch(@RequestBody BatchRequest request, Authentication auth) {
+        try {
+            String username = auth.getName();
+            BatchResponse response = healthService.saveBatch(username, request);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(createError(e.getMessage()));
+        }
+    }
+    
     @GetMapping("/summary")
-    public ResponseEntity<?> getSummary(Authentication auth) {
+    public ResponseEntity<?> getSummary(Authentication auth, WebRequest webRequest) {
         try {
             String username = auth.getName();
-            Map<String, Object> summary = healthService.getSummary(username);
-            return ResponseEntity.ok(summary);
+            if (notModified(webRequest, versionStamps.userTag(username))) {
+                return notModified(REVALIDATE);
+            }
+            SummaryResponse summary = healthService.getSummary(username);
+            return cached(REVALIDATE, summary);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createError(e.getMessage()));
         }
     }
     
     @GetMapping("/predict")
-    public ResponseEntity<?> predict(@RequestParam(defaultValue = "3") int days, Authentication auth) {
+    public ResponseEntity<?> predict(@RequestParam(defaultValue = "3") int days, Authentication auth, WebRequest webRequest) {
         try {
             String username = auth.getName();
-            Map<String, Object> predictions = healthService.predict(username, days);
-            return ResponseEntity.ok(predictions);
+            if (notModified(webRequest, versionStamps.userTag(username))) {
+                return notModified(REVALIDATE);
+            }
+            PredictionResponse predictions = healthService.predict(username, days);
+            return cached(REVALIDATE, predictions);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createError(e.getMessage()));
         }
     }
     
     @GetMapping("/leaderboard")
-    public ResponseEntity<?> getLeaderboard(Authentication auth) {
+    public ResponseEntity<?> getLeaderboard(Authentication auth, WebRequest webRequest) {
         try {
             String username = auth.getName();
-            List<Map<String, Object>> leaderboard = healthService.getLeaderboard(username);
-            return ResponseEntity.ok(leaderboard);
+            if (notModified(webRequest, versionStamps.globalTag(username))) {
+                return notModified(REVALIDATE);
+            }
+            List<LeaderboardEntry> leaderboard = healthService.getLeaderboard(username);
+            return cached(REVALIDATE, leaderboard);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(createError(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/leaderboard/global")
+    public ResponseEntity<?> getGlobalLeaderboard(@RequestParam(defaultValue = "10") int limit, Authentication auth, WebRequest webRequest) {
+        try {
+            String username = auth.getName();
+            if (notModified(webRequest, versionStamps.globalTag(username))) {
+                return notModified(REVALIDATE);
+            }
+            List<LeaderboardEntry> leaderboard = healthService.getGlobalLeaderboard(username, limit);
+            return cached(REVALIDATE, leaderboard);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createError(e.getMessage()));
         }
@@ -130,11 +205,14 @@ public class HealthController {
     }
     
     @GetMapping("/friends-activity")
-    public ResponseEntity<?> getFriendsActivity(Authentication auth) {
+    public ResponseEntity<?> getFriendsActivity(Authentication auth, WebRequest webRequest) {
         try {
             String username = auth.getName();
-            List<Map<String, Object>> activities = healthService.getFriendsActivity(username);
-            return ResponseEntity.ok(activities);
+            if (notModified(webRequest, versionStamps.globalTag(username))) {
+                return notModified(REVALIDATE);
+            }
+            List<FriendActivity> activities = healthService.getFriendsActivity(username);
+            return cached(REVALIDATE, activities);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createError(e.getMessage()));
         }
@@ -155,20 +233,92 @@ public class HealthController {
     public ResponseEntity<?> getMonthlyReport(
             @RequestParam(required = false) Integer year,
             @RequestParam(required = false) Integer month,
-            Authentication auth) {
+            Authentication auth, WebRequest webRequest) {
+        try {
+            String username = auth.getName();
+            LocalDate now = LocalDate.now();
+            int y = year != null ? year : now.getYear();
+            int m = month != null ? month : now.getMonthValue();
+            CacheControl cacheControl = reportCacheControl(y, m);
+            if (notModified(webRequest, versionStamps.userTag(username))) {
+                return notModified(cacheControl);
+            }
+            
+            MonthlyReport report = healthService.getMonthlyReport(username, y, m);
+            return cached(cacheControl, report);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(createError(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/monthly-report/entries")
+    public ResponseEntity<?> getReportEntries(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "31") int size,
+            Authentication auth, WebRequest webRequest) {
         try {
             String username = auth.getName();
             LocalDate now = LocalDate.now();
             int y = year != null ? year : now.getYear();
             int m = month != null ? month : now.getMonthValue();
+            CacheControl cacheControl = reportCacheControl(y, m);
+            if (notModified(webRequest, versionStamps.userTag(username))) {
+                return notModified(cacheControl);
+            }
             
-            Map<String, Object> report = healthService.getMonthlyReport(username, y, m);
-            return ResponseEntity.ok(report);
+            ReportEntries entries = healthService.getReportEntries(username, y, m, page, size);
+            return cached(cacheControl, entries);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createError(e.getMessage()));
         }
     }
     
+    @GetMapping("/yearly-report")
+    public ResponseEntity<?> getYearlyReport(@RequestParam(required = false) Integer year, Authentication auth, WebRequest webRequest) {
+        try {
+            String username = auth.getName();
+            if (notModified(webRequest, versionStamps.userTag(username))) {
+                return notModified(REVALIDATE);
+            }
+            int y = year != null ? year : LocalDate.now().getYear();
+            
+            YearlyReport report = healthService.getYearlyReport(username, y);
+            return cached(REVALIDATE, report);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(createError(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Past months change only through backfills, so their reports are cached without
+     * revalidation for {@code http.cache.past-month-max-age}; anything else is revalidated
+     * against its ETag on every use.
+     */
+    private CacheControl reportCacheControl(int year, int month) {
+        if (YearMonth.of(year, month).isBefore(YearMonth.now())) {
+            return CacheControl.maxAge(pastMonthMaxAge).cachePrivate().immutable();
+        }
+        return REVALIDATE;
+    }
+    
+    /**
+     * Checks the request's ETag against {@code tag} and sets the response's ETag, unless
+     * {@link VersionStamps#isEnabled() version stamps are off}.
+     */
+    private boolean notModified(WebRequest webRequest, String tag) {
+        return versionStamps.isEnabled() && webRequest.checkNotModified(tag);
+    }
+    
+    private ResponseEntity<?> cached(CacheControl cacheControl, Object body) {
+        return ResponseEntity.ok().cacheControl(cacheControl).varyBy(HttpHeaders.AUTHORIZATION).body(body);
+    }
+    
+    private ResponseEntity<?> notModified(CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).varyBy(HttpHeaders.AUTHORIZATION).build();
+    }
+    
     private Map<String, String> createError(String message) {
         Map<String, String> error = new java.util.HashMap<>();
         error.put("error", message);
@@ -0,0 +1,11 @@
+package com.healthtracker.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchRequest {
+    private List<EntryRequest> entries = new ArrayList<>();
+    private List<MealRequest> meals = new ArrayList<>();
+}
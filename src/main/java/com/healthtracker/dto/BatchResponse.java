@@ -0,0 +1,6 @@
+package com.healthtracker.dto;
+
+import java.time.LocalDate;
+
+public record BatchResponse(int entriesSaved, int mealsSaved, int daysTouched, LocalDate firstDate, LocalDate lastDate) {
+}
@@ -0,0 +1,6 @@
+package com.healthtracker.dto;
+
+import java.time.LocalDate;
+
+public record DailyMetrics(LocalDate date, Integer steps, Integer calories, Boolean isAnomaly) {
+}
@@ -0,0 +1,6 @@
+package com.healthtracker.dto;
+
+import java.time.LocalDate;
+
+public record FriendActivity(String username, String displayName, int steps, int calories, LocalDate date) {
+}
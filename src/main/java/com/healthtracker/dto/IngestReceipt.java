@@ -0,0 +1,4 @@
+package com.healthtracker.dto;
+
+public record IngestReceipt(long sequence) {
+}
@@ -0,0 +1,14 @@
+package com.healthtracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record LeaderboardEntry(
+        int rank,
+        String username,
+        String displayName,
+        long weeklySteps,
+        long weeklyCalories,
+        long todaySteps,
+        Integer currentStreak,
+        @JsonProperty("isCurrentUser") boolean isCurrentUser) {
+}
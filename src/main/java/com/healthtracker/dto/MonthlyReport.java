@@ -0,0 +1,21 @@
+package com.healthtracker.dto;
+
+import com.healthtracker.model.ActivityRollup;
+
+import java.util.List;
+
+public record MonthlyReport(
+        int year,
+        int month,
+        long totalSteps,
+        long totalCalories,
+        long avgSteps,
+        long avgCalories,
+        int maxSteps,
+        int minSteps,
+        int activeDays,
+        int anomalies,
+        Integer currentStreak,
+        List<ActivityRollup> weeks,
+        List<String> aiSuggestions) {
+}
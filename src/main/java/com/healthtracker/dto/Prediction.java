@@ -0,0 +1,6 @@
+package com.healthtracker.dto;
+
+import java.time.LocalDate;
+
+public record Prediction(LocalDate date, int steps, int calories) {
+}
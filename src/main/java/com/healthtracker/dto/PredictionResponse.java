@@ -0,0 +1,6 @@
+package com.healthtracker.dto;
+
+import java.util.List;
+
+public record PredictionResponse(List<Prediction> predictions, double confidence) {
+}
@@ -0,0 +1,8 @@
+package com.healthtracker.dto;
+
+import com.healthtracker.model.HealthEntry;
+
+import java.util.List;
+
+public record ReportEntries(List<HealthEntry> entries, int page, int size, long totalEntries, int totalPages) {
+}
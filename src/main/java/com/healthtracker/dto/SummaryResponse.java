@@ -0,0 +1,18 @@
+package com.healthtracker.dto;
+
+import com.healthtracker.model.Meal;
+
+import java.util.List;
+
+public record SummaryResponse(
+        int todaySteps,
+        int todayCalories,
+        int dailyStepsGoal,
+        int dailyCaloriesGoal,
+        int stepsProgress,
+        int caloriesProgress,
+        Integer currentStreak,
+        Integer longestStreak,
+        List<Meal> todayMeals,
+        List<String> aiSuggestions) {
+}
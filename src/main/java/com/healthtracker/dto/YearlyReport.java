@@ -0,0 +1,19 @@
+package com.healthtracker.dto;
+
+import com.healthtracker.model.ActivityRollup;
+
+import java.util.List;
+
+public record YearlyReport(
+        int year,
+        long totalSteps,
+        long totalCalories,
+        long avgSteps,
+        long avgCalories,
+        int maxSteps,
+        int minSteps,
+        int activeDays,
+        int anomalies,
+        Integer currentStreak,
+        List<ActivityRollup> months) {
+}
@@ -0,0 +1,15 @@
+package com.healthtracker.ingest;
+
+import java.time.LocalDate;
+
+/**
+ * One acknowledged write waiting in the {@link WriteAheadLog}. {@code steps} is null when the
+ * write does not replace the day's steps; {@code name} is only set for meals.
+ */
+public record HealthEvent(long sequence, Type type, long userId, LocalDate date, Integer steps, int calories, String name) {
+    
+    public enum Type {
+        ENTRY,
+        MEAL
+    }
+}
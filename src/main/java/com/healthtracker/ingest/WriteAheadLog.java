@@ -0,0 +1,206 @@
+package com.healthtracker.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of {@link HealthEvent}s kept in fixed-size, memory-mapped segment files.
+ * Each record is a length and CRC32 header followed by the encoded event; a zero length marks
+ * the end of a segment's data and a bad checksum marks a torn write, so {@link #open} stops
+ * reading a segment at either. Segments are named after their first sequence number and
+ * deleted by {@link #release} once every event in them has been applied.
+ * <p>
+ * Absent fields are written as sentinels: a name length of -1 for no name, so an empty name
+ * still round-trips, and {@code Integer.MIN_VALUE} for no steps, which {@link #append} refuses
+ * as a real value.
+ */
+public class WriteAheadLog implements Closeable {
+    
+    private static final String SUFFIX = ".wal";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int FIXED_PAYLOAD_BYTES = Long.BYTES + 1 + Long.BYTES + Long.BYTES + 2 * Integer.BYTES + Short.BYTES;
+    private static final int NO_STEPS = Integer.MIN_VALUE;
+    private static final int NO_NAME = -1;
+    private static final int MAX_NAME_BYTES = 1024;
+    
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean force;
+    
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private MappedByteBuffer active;
+    private long nextSequence = 1;
+    
+    public WriteAheadLog(Path directory, int segmentBytes, boolean force) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.force = force;
+    }
+    
+    /**
+     * Maps the existing segments and returns every intact event after {@code appliedSequence},
+     * oldest first. New appends continue after the last intact record of the newest segment
+     * and are numbered above {@code appliedSequence} even if the segment files were removed.
+     */
+    public synchronized List<HealthEvent> open(long appliedSequence) throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                 .forEach(path -> {
+                     String name = path.getFileName().toString();
+                     segments.put(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), path);
+                 });
+        }
+        
+        List<HealthEvent> events = new ArrayList<>();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            MappedByteBuffer buffer = map(segment.getValue());
+            int end = read(buffer, events);
+            nextSequence = Math.max(nextSequence, segment.getKey());
+            if (segment.getKey().equals(segments.lastKey())) {
+                buffer.position(end);
+                clearTail(buffer);
+                active = buffer;
+            }
+        }
+        if (!events.isEmpty()) {
+            nextSequence = Math.max(nextSequence, events.get(events.size() - 1).sequence() + 1);
+        }
+        nextSequence = Math.max(nextSequence, appliedSequence + 1);
+        if (active == null) {
+            rotate();
+        }
+        events.removeIf(event -> event.sequence() <= appliedSequence);
+        return events;
+    }
+    
+    public synchronized HealthEvent append(HealthEvent.Type type, long userId, LocalDate date, Integer steps, int calories, String name) throws IOException {
+        byte[] nameBytes = name != null ? name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (nameBytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name too long");
+        }
+        if (steps != null && steps == NO_STEPS) {
+            throw new IllegalArgumentException("Steps out of range");
+        }
+        int payloadBytes = FIXED_PAYLOAD_BYTES + nameBytes.length;
+        if (active.remaining() < HEADER_BYTES + payloadBytes) {
+            rotate();
+        }
+        
+        HealthEvent event = new HealthEvent(nextSequence++, type, userId, date, steps, calories, name);
+        int start = active.position();
+        active.position(start + HEADER_BYTES);
+        active.putLong(event.sequence());
+        active.put((byte) type.ordinal());
+        active.putLong(userId);
+        active.putLong(date.toEpochDay());
+        active.putInt(steps != null ? steps : NO_STEPS);
+        active.putInt(calories);
+        active.putShort((short) (name != null ? nameBytes.length : NO_NAME));
+        active.put(nameBytes);
+        
+        // The length is written last so a crash mid-append leaves a zero or checksum-failing header.
+        active.putInt(start + Integer.BYTES, checksum(active, start + HEADER_BYTES, payloadBytes));
+        active.putInt(start, payloadBytes);
+        if (force) {
+            active.force();
+        }
+        return event;
+    }
+    
+    /**
+     * Deletes every segment whose events all have sequence numbers at or below
+     * {@code appliedSequence}. The active segment is always kept.
+     */
+    public synchronized void release(long appliedSequence) throws IOException {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> oldest = segments.firstEntry();
+            Long next = segments.higherKey(oldest.getKey());
+            if (next - 1 > appliedSequence) break;
+            Files.deleteIfExists(oldest.getValue());
+            segments.remove(oldest.getKey());
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (active != null) {
+            active.force();
+        }
+    }
+    
+    private void rotate() throws IOException {
+        if (active != null) {
+            active.force();
+        }
+        Path path = directory.resolve(String.format("%020d%s", nextSequence, SUFFIX));
+        active = map(path);
+        segments.put(nextSequence, path);
+    }
+    
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+    
+    private int read(MappedByteBuffer buffer, List<HealthEvent> events) {
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length < FIXED_PAYLOAD_BYTES || position + HEADER_BYTES + length > buffer.limit()) break;
+            int payload = position + HEADER_BYTES;
+            if (buffer.getInt(position + Integer.BYTES) != checksum(buffer, payload, length)) break;
+            
+            long sequence = buffer.getLong(payload);
+            HealthEvent.Type type = HealthEvent.Type.values()[buffer.get(payload + 8)];
+            long userId = buffer.getLong(payload + 9);
+            LocalDate date = LocalDate.ofEpochDay(buffer.getLong(payload + 17));
+            int steps = buffer.getInt(payload + 25);
+            int calories = buffer.getInt(payload + 29);
+            short nameLength = buffer.getShort(payload + 33);
+            String name = null;
+            if (nameLength != NO_NAME) {
+                byte[] nameBytes = new byte[nameLength];
+                buffer.get(payload + FIXED_PAYLOAD_BYTES, nameBytes);
+                name = new String(nameBytes, StandardCharsets.UTF_8);
+            }
+            events.add(new HealthEvent(sequence, type, userId, date,
+                    steps == NO_STEPS ? null : steps, calories, name));
+            
+            position = payload + length;
+        }
+        return position;
+    }
+    
+    /**
+     * Zeroes a torn record left at the append position, so a later, shorter record cannot be
+     * followed by stale bytes that happen to parse.
+     */
+    private void clearTail(MappedByteBuffer buffer) {
+        int position = buffer.position();
+        if (position + Integer.BYTES > buffer.limit() || buffer.getInt(position) == 0) return;
+        for (int i = position; i < buffer.limit(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+    
+    private int checksum(MappedByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
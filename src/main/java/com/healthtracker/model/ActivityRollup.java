@@ -0,0 +1,60 @@
+package com.healthtracker.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated totals for one user over one calendar week or month, kept current on every
+ * write so reports never have to scan the underlying entries.
+ */
+@Entity
+@Table(name = "activity_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_activity_rollups_user_period",
+                                             columnNames = {"user_id", "period", "period_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @JsonIgnore
+    private Long id;
+    
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupPeriod period;
+    
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+    
+    private Integer activeDays = 0;
+    
+    private Long totalSteps = 0L;
+    
+    private Long totalCalories = 0L;
+    
+    private Integer maxSteps = 0;
+    
+    private Integer minSteps = 0;
+    
+    private Integer maxCalories = 0;
+    
+    private Integer minCalories = 0;
+    
+    private Integer anomalies = 0;
+    
+    @JsonIgnore
+    private Double stepsSquares = 0.0;
+    
+    @JsonIgnore
+    private Double caloriesSquares = 0.0;
+}
@@ -0,0 +1,53 @@
+package com.healthtracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Latest nightly forecast for one user, keyed by user id and overwritten by every batch
+ * analytics run.
+ */
+@Entity
+@Table(name = "forecasts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Forecast implements Persistable<Long> {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(nullable = false)
+    private LocalDate forecastDate;
+    
+    private Integer steps;
+    
+    private Integer calories;
+    
+    private Double confidence;
+    
+    private LocalDateTime generatedAt;
+    
+    /**
+     * Set on a forecast for a user who has none stored yet, so saving it persists the row
+     * instead of merging it, which would first select the assigned id.
+     */
+    @Transient
+    private boolean created;
+    
+    @Override
+    public Long getId() {
+        return userId;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+}
@@ -7,7 +7,8 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "friends")
+@Table(name = "friends",
+       indexes = @Index(name = "idx_friends_user", columnList = "user_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
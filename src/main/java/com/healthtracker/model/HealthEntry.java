@@ -7,7 +7,8 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "health_entries")
+@Table(name = "health_entries",
+       uniqueConstraints = @UniqueConstraint(name = "uk_health_entries_user_date", columnNames = {"user_id", "date"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,4 +31,7 @@ public class HealthEntry {
     private Boolean isAnomaly = false;
     
     private String anomalyType;
+    
+    /** Robust z-score against the preceding days when the day was written; null if too few. */
+    private Double anomalyScore;
 }
@@ -0,0 +1,26 @@
+package com.healthtracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Highest write-ahead log sequence whose events have been committed to the database. Updated
+ * in the same transaction as the events themselves, so replay after a crash never applies an
+ * event twice.
+ */
+@Entity
+@Table(name = "ingest_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestCheckpoint {
+    public static final long WRITE_AHEAD_LOG = 1L;
+    
+    @Id
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long appliedSequence;
+}
@@ -8,7 +8,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "meals")
+@Table(name = "meals",
+       indexes = @Index(name = "idx_meals_user_date", columnList = "user_id, date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,34 @@
+package com.healthtracker.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum RollupPeriod {
+    WEEK {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+        
+        @Override
+        public LocalDate end(LocalDate start) {
+            return start.plusDays(6);
+        }
+    },
+    MONTH {
+        @Override
+        public LocalDate start(LocalDate date) {
+            return date.withDayOfMonth(1);
+        }
+        
+        @Override
+        public LocalDate end(LocalDate start) {
+            return start.withDayOfMonth(start.lengthOfMonth());
+        }
+    };
+    
+    public abstract LocalDate start(LocalDate date);
+    
+    public abstract LocalDate end(LocalDate start);
+}
@@ -0,0 +1,16 @@
+package com.healthtracker.repository;
+
+import com.healthtracker.model.ActivityRollup;
+import com.healthtracker.model.RollupPeriod;
+import com.healthtracker.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ActivityRollupRepository extends JpaRepository<ActivityRollup, Long> {
+    List<ActivityRollup> findByUser(User user);
+    List<ActivityRollup> findByUserAndPeriodStartBetween(User user, LocalDate start, LocalDate end);
+    List<ActivityRollup> findByUserAndPeriodAndPeriodStartBetweenOrderByPeriodStart(User user, RollupPeriod period, LocalDate start, LocalDate end);
+}
@@ -3,6 +3,8 @@ package com.healthtracker.repository;
 import com.healthtracker.model.Friend;
 import com.healthtracker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -11,4 +13,7 @@ import java.util.Optional;
 public interface FriendRepository extends JpaRepository<Friend, Long> {
     List<Friend> findByUser(User user);
     Optional<Friend> findByUserAndFriend(User user, User friend);
+    
+    @Query("select f.friend from Friend f where f.user = :user")
+    List<User> findFriendUsers(@Param("user") User user);
 }
@@ -1,16 +1,91 @@
 package com.healthtracker.repository;
 
+import com.healthtracker.dto.DailyActivity;
+import com.healthtracker.dto.DailyMetrics;
 import com.healthtracker.model.HealthEntry;
 import com.healthtracker.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface HealthEntryRepository extends JpaRepository<HealthEntry, Long> {
     List<HealthEntry> findByUserAndDateBetweenOrderByDateDesc(User user, LocalDate start, LocalDate end);
-    List<HealthEntry> findByUserOrderByDateDesc(User user);
     Optional<HealthEntry> findByUserAndDate(User user, LocalDate date);
+    Page<HealthEntry> findByUserAndDateBetween(User user, LocalDate start, LocalDate end, Pageable pageable);
+    
+    @Query("select e.date from HealthEntry e where e.user = :user")
+    List<LocalDate> findDatesByUser(@Param("user") User user);
+    
+    @Query("select e.date from HealthEntry e where e.user = :user and e.date between :start and :end")
+    List<LocalDate> findDatesByUserAndDateBetween(@Param("user") User user,
+                                                  @Param("start") LocalDate start,
+                                                  @Param("end") LocalDate end);
+    
+    /**
+     * Adds {@code calories} to the user's stored total for the day in a single statement.
+     * Returns the number of rows touched, which is zero when the day has no entry yet.
+     */
+    @Modifying
+    @Transactional
+    @Query("update HealthEntry e set e.calories = e.calories + :calories " +
+           "where e.user.id = :userId and e.date = :date")
+    int addCalories(@Param("userId") Long userId,
+                    @Param("date") LocalDate date,
+                    @Param("calories") int calories);
+    
+    /**
+     * Same as {@link #addCalories} but also replaces the day's steps.
+     */
+    @Modifying
+    @Transactional
+    @Query("update HealthEntry e set e.steps = :steps, e.calories = e.calories + :calories " +
+           "where e.user.id = :userId and e.date = :date")
+    int setStepsAndAddCalories(@Param("userId") Long userId,
+                               @Param("date") LocalDate date,
+                               @Param("steps") int steps,
+                               @Param("calories") int calories);
+    
+    /**
+     * Stores an anomaly score, unless the day's values have changed since it was computed.
+     */
+    @Modifying
+    @Transactional
+    @Query("update HealthEntry e set e.anomalyScore = :score, e.isAnomaly = :anomaly, e.anomalyType = :type " +
+           "where e.id = :id and e.steps = :steps and e.calories = :calories")
+    int setAnomalyScore(@Param("id") Long id,
+                        @Param("steps") int steps,
+                        @Param("calories") int calories,
+                        @Param("score") Double score,
+                        @Param("anomaly") boolean anomaly,
+                        @Param("type") String type);
+    
+    @Query("select e.date from HealthEntry e where e.user = :user and e.steps > 0 order by e.date")
+    List<LocalDate> findActiveDates(@Param("user") User user);
+    
+    @Query("select new com.healthtracker.dto.DailyActivity(e.user.id, e.date, e.steps, e.calories) " +
+           "from HealthEntry e where e.date between :start and :end")
+    List<DailyActivity> findDailyActivityBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+    
+    @Query("select e from HealthEntry e where e.user.id in :userIds and e.date between :start and :end order by e.date")
+    List<HealthEntry> findByUserIdsAndDateBetween(@Param("userIds") Collection<Long> userIds,
+                                                  @Param("start") LocalDate start,
+                                                  @Param("end") LocalDate end);
+    
+    @Query("select new com.healthtracker.dto.DailyMetrics(e.date, e.steps, e.calories, e.isAnomaly) " +
+           "from HealthEntry e where e.user = :user")
+    List<DailyMetrics> findDailyMetrics(@Param("user") User user);
+    
+    @Query("select new com.healthtracker.dto.DailyMetrics(e.date, e.steps, e.calories, e.isAnomaly) " +
+           "from HealthEntry e where e.user = :user order by e.date desc")
+    List<DailyMetrics> findRecentDailyMetrics(@Param("user") User user, Pageable pageable);
 }
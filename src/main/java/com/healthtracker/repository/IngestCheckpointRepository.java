@@ -0,0 +1,9 @@
+package com.healthtracker.repository;
+
+import com.healthtracker.model.IngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, Long> {
+}
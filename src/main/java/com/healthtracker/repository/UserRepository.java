@@ -2,7 +2,12 @@ package com.healthtracker.repository;
 
 import com.healthtracker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 
@@ -11,4 +16,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     List<User> findByUsernameContainingIgnoreCase(String username);
+    
+    /**
+     * Writes only the streak columns, so a concurrent change to the rest of the user row is
+     * never overwritten with a stale copy.
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.currentStreak = :current, u.longestStreak = :longest, " +
+           "u.lastActivityDate = :lastActivityDate where u.id = :id")
+    int updateStreaks(@Param("id") Long id,
+                      @Param("current") int current,
+                      @Param("longest") int longest,
+                      @Param("lastActivityDate") LocalDateTime lastActivityDate);
+    
+    @Query("select u.username from User u where u.currentStreak > 0 and u.lastActivityDate < :cutoff")
+    List<String> findUsernamesWithLapsedStreaks(@Param("cutoff") LocalDateTime cutoff);
+    
+    @Modifying
+    @Transactional
+    @Query("update User u set u.currentStreak = 0 where u.currentStreak > 0 and u.lastActivityDate < :cutoff")
+    int clearLapsedStreaks(@Param("cutoff") LocalDateTime cutoff);
 }
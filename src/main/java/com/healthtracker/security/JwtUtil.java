@@ -1,15 +1,22 @@
 package com.healthtracker.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Component
 public class JwtUtil {
@@ -20,9 +27,28 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+    
+    private SecretKey signingKey;
+    
+    private JwtParser parser;
+    
+    private Map<String, VerifiedToken> verifiedTokens;
+    
+    private record VerifiedToken(String username, long expiresAt) {
+    }
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > cacheMaxSize;
+            }
+        };
     }
     
     public String generateToken(String username) {
@@ -30,28 +56,64 @@ public class JwtUtil {
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
+    /**
+     * Returns the subject of a valid token, or {@code null} if the token is invalid or expired.
+     * Verified tokens are cached by hash until their {@code exp} claim, so repeat requests with
+     * the same token skip signature verification. The cache holds at most
+     * {@code jwt.cache.max-size} tokens and drops the least recently used first.
+     */
+    public String resolveUsername(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+        
+        synchronized (verifiedTokens) {
+            VerifiedToken cached = verifiedTokens.get(key);
+            if (cached != null) {
+                if (cached.expiresAt() > now) {
+                    return cached.username();
+                }
+                verifiedTokens.remove(key);
+            }
+        }
+        
+        Claims claims;
+        try {
+            claims = getClaims(token);
+        } catch (Exception e) {
+            return null;
+        }
+        
+        Date expiresAt = claims.getExpiration();
+        if (expiresAt != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(key, new VerifiedToken(claims.getSubject(), expiresAt.getTime()));
+            }
+        }
+        return claims.getSubject();
+    }
+    
     public String getUsernameFromToken(String token) {
         return getClaims(token).getSubject();
     }
     
     public boolean validateToken(String token) {
-        try {
-            getClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return resolveUsername(token) != null;
     }
     
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+    
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
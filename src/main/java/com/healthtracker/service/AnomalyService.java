@@ -0,0 +1,119 @@
+package com.healthtracker.service;
+
+import com.healthtracker.analytics.AnomalyDetector;
+import com.healthtracker.analytics.AnomalyScore;
+import com.healthtracker.dto.DailyMetrics;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.HealthEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Scores each day as it is written against the {@value #BASELINE_DAYS} days before it and
+ * stores the score on the entry, so anomaly flags have one fixed definition and reads never
+ * recompute them. Keeps an {@link AnomalyDetector} per user, seeded from the user's latest
+ * days on first use; edits to days before the latest one are scored against their own
+ * baseline from the {@link SeriesStore}. Scores are not revisited when a later backfill
+ * changes a scored day's baseline; the nightly job only fills in days left unscored.
+ */
+@Service
+public class AnomalyService {
+    
+    public static final int BASELINE_DAYS = 28;
+    
+    public static final int MIN_BASELINE_DAYS = 7;
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private SeriesStore seriesStore;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private UserWriteLocks userWriteLocks;
+    
+    @Value("${analytics.max-resident-users:5000}")
+    private int maxResidentUsers;
+    
+    private ResidentUserMap<AnomalyDetector> detectorsByUser;
+    
+    @PostConstruct
+    public void init() {
+        detectorsByUser = new ResidentUserMap<>(maxResidentUsers, userWriteLocks);
+    }
+    
+    /**
+     * Feeds a committed entry to the user's detector and sets its score, flag and type.
+     * Returns true when any of them changed, so the caller writes the entry back with
+     * {@link #save}. The series store must already hold the entry's day.
+     */
+    public boolean score(User user, HealthEntry entry) {
+        AnomalyDetector detector = detectorsByUser.get(user.getId(), id -> load(user));
+        AnomalyScore score = detector.record(entry.getDate(), entry.getSteps(), entry.getCalories());
+        if (score == null) {
+            LocalDate date = entry.getDate();
+            score = detector.score(seriesStore.columns(user, date.minusDays(BASELINE_DAYS), date.minusDays(1)),
+                    entry.getSteps(), entry.getCalories());
+        }
+        return apply(entry, score);
+    }
+    
+    /**
+     * Sets the entry's score fields and returns true if they changed.
+     */
+    public boolean apply(HealthEntry entry, AnomalyScore score) {
+        Double value = score.isScored() ? Math.round(score.value() * 100) / 100.0 : null;
+        boolean changed = !Objects.equals(value, entry.getAnomalyScore())
+                || score.isAnomaly() != Boolean.TRUE.equals(entry.getIsAnomaly())
+                || !Objects.equals(score.type(), entry.getAnomalyType());
+        entry.setAnomalyScore(value);
+        entry.setIsAnomaly(score.isAnomaly());
+        entry.setAnomalyType(score.type());
+        return changed;
+    }
+    
+    /**
+     * Writes back the scores of committed entries in one transaction. An entry whose row was
+     * changed again in the meantime is skipped; the later write scores it instead.
+     */
+    public void save(Collection<HealthEntry> entries) {
+        if (entries.isEmpty()) return;
+        transactionTemplate.executeWithoutResult(status -> {
+            for (HealthEntry entry : entries) {
+                healthEntryRepository.setAnomalyScore(entry.getId(), entry.getSteps(), entry.getCalories(),
+                        entry.getAnomalyScore(), entry.getIsAnomaly(), entry.getAnomalyType());
+            }
+        });
+    }
+    
+    public AnomalyDetector newDetector() {
+        return new AnomalyDetector(BASELINE_DAYS, MIN_BASELINE_DAYS);
+    }
+    
+    private AnomalyDetector load(User user) {
+        AnomalyDetector detector = newDetector();
+        List<DailyMetrics> recent = healthEntryRepository.findRecentDailyMetrics(user, PageRequest.of(0, BASELINE_DAYS + 1));
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            DailyMetrics day = recent.get(i);
+            detector.record(day.date(), valueOf(day.steps()), valueOf(day.calories()));
+        }
+        return detector;
+    }
+    
+    private int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
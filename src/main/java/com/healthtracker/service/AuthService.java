@@ -28,6 +28,9 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private UserCache userCache;
+    
     public AuthResponse register(AuthRequest request) {
         if (userRepository.findByUsername(request.getUsername()).isPresent()) {
             throw new RuntimeException("Username already exists");
@@ -55,6 +58,7 @@ public class AuthService {
         target.setDailyCaloriesGoal(2000);
         target.setWeeklyCaloriesGoal(14000);
         targetRepository.save(target);
+        userCache.invalidate(user.getUsername());
         
         String token = jwtUtil.generateToken(user.getUsername());
         
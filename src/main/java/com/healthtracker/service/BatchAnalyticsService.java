@@ -0,0 +1,281 @@
+package com.healthtracker.service;
+
+import com.healthtracker.analytics.AnomalyDetector;
+import com.healthtracker.analytics.AnomalyScore;
+import com.healthtracker.analytics.ForecastModel;
+import com.healthtracker.dto.Prediction;
+import com.healthtracker.dto.PredictionResponse;
+import com.healthtracker.model.Forecast;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.ForecastRepository;
+import com.healthtracker.repository.HealthEntryRepository;
+import com.healthtracker.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly job that forecasts tomorrow for every user and scores recent days that have no
+ * anomaly score yet, such as rows written before scoring existed or days whose baseline has
+ * since been backfilled. Users are paged in chunks of {@code analytics.batch.chunk-size};
+ * each chunk's days within the forecast and anomaly baselines are loaded with one query,
+ * processed on a pool of {@code analytics.batch.parallelism} workers and written back in a
+ * second transaction. Forecasts are stored in {@link Forecast}; newly scored days update the
+ * entries, the series store and the rollups as a regular write would.
+ */
+@Service
+public class BatchAnalyticsService {
+    
+    private static final Logger log = LoggerFactory.getLogger(BatchAnalyticsService.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private ForecastRepository forecastRepository;
+    
+    @Autowired
+    private MLService mlService;
+    
+    @Autowired
+    private SeriesStore seriesStore;
+    
+    @Autowired
+    private ForecastModelStore forecastModelStore;
+    
+    @Autowired
+    private AnomalyService anomalyService;
+    
+    @Autowired
+    private RollupService rollupService;
+    
+    @Autowired
+    private VersionStamps versionStamps;
+    
+    @Autowired
+    private UserWriteLocks userWriteLocks;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${analytics.batch.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${analytics.batch.parallelism:0}")
+    private int parallelism;
+    
+    @Value("${analytics.batch.score-days:14}")
+    private int scoreDays;
+    
+    private TransactionTemplate readOnlyTransaction;
+    
+    private volatile RunStats lastRun;
+    
+    public record RunStats(int users, int forecasts, int daysScored, long millis) {
+        public double usersPerSecond() {
+            return millis == 0 ? users : users * 1000.0 / millis;
+        }
+    }
+    
+    private record UserAnalysis(User user, Prediction forecast, double confidence, List<HealthEntry> scored) {
+    }
+    
+    private record Chunk(List<UserAnalysis> results, int users, boolean hasNext) {
+    }
+    
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @Scheduled(cron = "${analytics.batch.cron:0 30 0 * * *}")
+    public void runNightly() {
+        run(LocalDate.now());
+    }
+    
+    public RunStats run(LocalDate today) {
+        long started = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        int users = 0;
+        int forecasts = 0;
+        int daysScored = 0;
+        try {
+            PageRequest pageRequest = PageRequest.of(0, chunkSize, Sort.by("id"));
+            Chunk chunk;
+            do {
+                PageRequest current = pageRequest;
+                chunk = processChunk(current, today, pool);
+                for (UserAnalysis result : chunk.results()) {
+                    if (result.forecast() != null) forecasts++;
+                    daysScored += result.scored().size();
+                    publishScored(result);
+                }
+                users += chunk.users();
+                pageRequest = pageRequest.next();
+            } while (chunk.hasNext());
+        } finally {
+            pool.shutdown();
+        }
+        
+        RunStats stats = new RunStats(users, forecasts, daysScored,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        lastRun = stats;
+        log.info("Batch analytics: users={}, forecasts={}, daysScored={}, millis={}, usersPerSecond={}",
+                stats.users(), stats.forecasts(), stats.daysScored(), stats.millis(),
+                String.format("%.1f", stats.usersPerSecond()));
+        return stats;
+    }
+    
+    public RunStats getLastRun() {
+        return lastRun;
+    }
+    
+    /**
+     * Loads one page of users in a read-only transaction, scores and forecasts them outside
+     * it, then writes the forecasts and scores in a second transaction. The entries are
+     * detached by then, so only the scores are written, through the conditional update in
+     * {@link AnomalyService#save}: a day changed since it was loaded keeps the newer values.
+     */
+    private Chunk processChunk(PageRequest pageRequest, LocalDate today, ForkJoinPool pool) {
+        Map<Long, List<HealthEntry>> entriesByUser = new HashMap<>();
+        Page<User> page = readOnlyTransaction.execute(status -> {
+            Page<User> users = userRepository.findAll(pageRequest);
+            List<Long> userIds = users.getContent().stream().map(User::getId).collect(Collectors.toList());
+            int loadDays = Math.max(forecastModelStore.getEngine().getWindowRows(), scoreDays + AnomalyService.BASELINE_DAYS);
+            for (HealthEntry entry : healthEntryRepository.findByUserIdsAndDateBetween(userIds, today.minusDays(loadDays - 1), today)) {
+                entriesByUser.computeIfAbsent(entry.getUser().getId(), id -> new ArrayList<>()).add(entry);
+            }
+            return users;
+        });
+        
+        // Each task only touches its own user's entries, and join() publishes the score
+        // changes back to this thread before they are written.
+        List<UserAnalysis> results = pool.submit(() -> page.getContent().parallelStream()
+                .map(user -> analyze(user, entriesByUser.getOrDefault(user.getId(), List.of()), today))
+                .collect(Collectors.toList())).join();
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Forecast> forecasts = new ArrayList<>();
+        List<HealthEntry> scored = new ArrayList<>();
+        for (UserAnalysis result : results) {
+            scored.addAll(result.scored());
+            if (result.forecast() == null) continue;
+            Forecast forecast = new Forecast();
+            forecast.setUserId(result.user().getId());
+            forecast.setForecastDate(result.forecast().date());
+            forecast.setSteps(result.forecast().steps());
+            forecast.setCalories(result.forecast().calories());
+            forecast.setConfidence(result.confidence());
+            forecast.setGeneratedAt(now);
+            forecasts.add(forecast);
+        }
+        // Forecasts use the user id as their key, so nothing here allocates generated ids.
+        transactionTemplate.executeWithoutResult(status -> {
+            saveForecasts(forecasts);
+            anomalyService.save(scored);
+        });
+        
+        return new Chunk(results, page.getNumberOfElements(), page.hasNext());
+    }
+    
+    /**
+     * Writes a chunk's forecasts with one query for the rows already stored, which are updated
+     * through dirty checking; the rest are persisted as new. Saving them all would merge each
+     * one, and a merge selects its row first.
+     */
+    private void saveForecasts(List<Forecast> forecasts) {
+        if (forecasts.isEmpty()) return;
+        Map<Long, Forecast> byUser = new HashMap<>();
+        for (Forecast forecast : forecasts) {
+            byUser.put(forecast.getUserId(), forecast);
+        }
+        for (Forecast stored : forecastRepository.findAllById(byUser.keySet())) {
+            Forecast forecast = byUser.remove(stored.getUserId());
+            stored.setForecastDate(forecast.getForecastDate());
+            stored.setSteps(forecast.getSteps());
+            stored.setCalories(forecast.getCalories());
+            stored.setConfidence(forecast.getConfidence());
+            stored.setGeneratedAt(forecast.getGeneratedAt());
+        }
+        for (Forecast forecast : byUser.values()) {
+            forecast.setCreated(true);
+        }
+        forecastRepository.saveAll(byUser.values());
+    }
+    
+    private UserAnalysis analyze(User user, List<HealthEntry> entries, LocalDate today) {
+        ForecastModel model = forecastModelStore.getEngine().newModel();
+        AnomalyDetector detector = anomalyService.newDetector();
+        LocalDate modelStart = today.minusDays(forecastModelStore.getEngine().getWindowRows() - 1);
+        LocalDate scoreStart = today.minusDays(scoreDays - 1);
+        List<HealthEntry> scored = new ArrayList<>();
+        LocalDate lastDate = null;
+        for (HealthEntry entry : entries) {
+            if (!entry.getDate().isBefore(modelStart)) {
+                model.record(entry.getDate(), entry.getSteps(), entry.getCalories());
+                lastDate = entry.getDate();
+            }
+            AnomalyScore score = detector.record(entry.getDate(), entry.getSteps(), entry.getCalories());
+            if (entry.getAnomalyScore() == null && !entry.getDate().isBefore(scoreStart)
+                    && score.isScored() && anomalyService.apply(entry, score)) {
+                scored.add(entry);
+            }
+        }
+        
+        Prediction forecast = null;
+        double confidence = 0;
+        LocalDate tomorrow = today.plusDays(1);
+        if (lastDate != null) {
+            int days = (int) ChronoUnit.DAYS.between(lastDate, tomorrow);
+            PredictionResponse prediction = mlService.predictNextDays(model, days);
+            forecast = prediction.predictions().get(days - 1);
+            confidence = prediction.confidence();
+        }
+        return new UserAnalysis(user, forecast, confidence, scored);
+    }
+    
+    /**
+     * Refreshes the series and rollups for the days scored, from the rows as they are now: a
+     * day written again since the chunk was loaded keeps that write's values and score.
+     */
+    private void publishScored(UserAnalysis result) {
+        if (result.scored().isEmpty()) return;
+        User user = result.user();
+        TreeSet<LocalDate> touched = new TreeSet<>();
+        for (HealthEntry entry : result.scored()) {
+            touched.add(entry.getDate());
+        }
+        userWriteLocks.withLock(user.getId(), () -> {
+            LocalDate first = touched.first();
+            LocalDate last = touched.last();
+            for (HealthEntry entry : healthEntryRepository.findByUserAndDateBetweenOrderByDateDesc(user, first, last)) {
+                if (touched.contains(entry.getDate())) {
+                    seriesStore.record(user, entry);
+                }
+            }
+            rollupService.refresh(user, touched);
+        });
+        versionStamps.changed(user.getUsername());
+    }
+}
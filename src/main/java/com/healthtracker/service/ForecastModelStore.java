@@ -0,0 +1,69 @@
+package com.healthtracker.service;
+
+import com.healthtracker.analytics.ForecastEngine;
+import com.healthtracker.analytics.ForecastModel;
+import com.healthtracker.dto.DailyMetrics;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.HealthEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Keeps a {@link ForecastModel} of the configured {@code forecast.engine} per user over their
+ * latest recorded days, seeded from the database with a query limited to the engine's window
+ * and fed by every write afterwards, so forecasting never reads entry history.
+ */
+@Service
+public class ForecastModelStore {
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Value("${forecast.engine:linear}")
+    private ForecastEngine engine;
+    
+    @Autowired
+    private UserWriteLocks userWriteLocks;
+    
+    @Value("${analytics.max-resident-users:5000}")
+    private int maxResidentUsers;
+    
+    private ResidentUserMap<ForecastModel> modelsByUser;
+    
+    @PostConstruct
+    public void init() {
+        modelsByUser = new ResidentUserMap<>(maxResidentUsers, userWriteLocks);
+    }
+    
+    public void record(User user, HealthEntry entry) {
+        model(user).record(entry.getDate(), entry.getSteps(), entry.getCalories());
+    }
+    
+    public ForecastModel model(User user) {
+        return modelsByUser.get(user.getId(), id -> load(user));
+    }
+    
+    public ForecastEngine getEngine() {
+        return engine;
+    }
+    
+    private ForecastModel load(User user) {
+        ForecastModel model = engine.newModel();
+        List<DailyMetrics> recent = healthEntryRepository.findRecentDailyMetrics(user, PageRequest.of(0, engine.getWindowRows()));
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            DailyMetrics day = recent.get(i);
+            model.record(day.date(), valueOf(day.steps()), valueOf(day.calories()));
+        }
+        return model;
+    }
+    
+    private int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
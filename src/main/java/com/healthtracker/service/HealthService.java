@@ -1,21 +1,49 @@
 package com.healthtracker.service;
 
+import com.healthtracker.analytics.SuggestionFeatures;
+import com.healthtracker.analytics.WindowSnapshot;
+import com.healthtracker.dto.BatchRequest;
+import com.healthtracker.dto.BatchResponse;
 import com.healthtracker.dto.EntryRequest;
+import com.healthtracker.dto.FriendActivity;
+import com.healthtracker.dto.LeaderboardEntry;
 import com.healthtracker.dto.MealRequest;
+import com.healthtracker.dto.MonthlyReport;
+import com.healthtracker.dto.PredictionResponse;
+import com.healthtracker.dto.ReportEntries;
+import com.healthtracker.dto.SummaryResponse;
+import com.healthtracker.dto.YearlyReport;
 import com.healthtracker.model.*;
 import com.healthtracker.repository.*;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
 public class HealthService {
     
+    private static final int MAX_PAGE_SIZE = 366;
+    
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -34,18 +62,68 @@ public class HealthService {
     @Autowired
     private MLService mlService;
     
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private StreakService streakService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate newTransaction;
+    
+    @Autowired
+    private RollingStatsService rollingStatsService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private RollupService rollupService;
+    
+    @Autowired
+    private SeriesStore seriesStore;
+    
+    @Autowired
+    private ForecastModelStore forecastModelStore;
+    
+    @Autowired
+    private AnomalyService anomalyService;
+    
+    @Autowired
+    private SuggestionService suggestionService;
+    
+    @Autowired
+    private AsyncTaskExecutor taskExecutor;
+    
+    @Autowired
+    private VersionStamps versionStamps;
+    
+    @Autowired
+    private UserWriteLocks userWriteLocks;
+    
+    @PostConstruct
+    public void init() {
+        // Read-only methods may still create a missing default target; that write needs its
+        // own transaction rather than joining the read-only one.
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    @Transactional(readOnly = true)
     public List<HealthEntry> getEntries(String username, int days) {
         User user = getUser(username);
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(days - 1);
         
-        List<HealthEntry> entries = healthEntryRepository.findByUserAndDateBetweenOrderByDateDesc(user, startDate, endDate);
-        mlService.detectAnomalies(entries);
-        healthEntryRepository.saveAll(entries);
-        
-        return entries;
+        return healthEntryRepository.findByUserAndDateBetweenOrderByDateDesc(user, startDate, endDate);
     }
     
+    @Transactional(readOnly = true)
     public HealthEntry getEntry(String username, String dateStr) {
         User user = getUser(username);
         LocalDate date = LocalDate.parse(dateStr);
@@ -57,145 +135,347 @@ public class HealthService {
     public HealthEntry saveEntry(String username, EntryRequest request) {
         User user = getUser(username);
         
-        HealthEntry entry = healthEntryRepository.findByUserAndDate(user, request.getDate())
-                .orElse(new HealthEntry());
-        
-        entry.setUser(user);
-        entry.setDate(request.getDate());
+        int calories = request.getCalories() != null ? request.getCalories() : 0;
+        upsertDay(user, request.getDate(), request.getSteps(), calories);
+        HealthEntry entry = onEntryChanged(user, request.getDate());
         
         if (request.getSteps() != null) {
-            entry.setSteps(request.getSteps());
-        }
-        
-        if (request.getCalories() != null) {
-            entry.setCalories(entry.getCalories() + request.getCalories());
+            streakService.recordDay(user, entry.getDate(), entry.getSteps() > 0);
         }
         
-        entry = healthEntryRepository.save(entry);
-        
-        updateStreak(user);
-        
+        versionStamps.changed(username);
         return entry;
     }
     
+    /**
+     * Saves a meal as a one-meal batch, so the meal row and the day's calories commit together
+     * and conflicts are retried as they are for {@link #saveBatch}.
+     */
     public Meal saveMeal(String username, MealRequest request) {
-        User user = getUser(username);
-        
-        Meal meal = new Meal();
-        meal.setUser(user);
-        meal.setDate(request.getDate());
-        meal.setTime(LocalTime.now());
-        meal.setName(request.getName());
-        meal.setCalories(request.getCalories());
-        
-        meal = mealRepository.save(meal);
+        BatchRequest batchRequest = new BatchRequest();
+        batchRequest.getMeals().add(request);
+        PendingBatch batch = prepareBatch(getUser(username), batchRequest);
         
-        HealthEntry entry = healthEntryRepository.findByUserAndDate(user, request.getDate())
-                .orElse(new HealthEntry());
-        entry.setUser(user);
-        entry.setDate(request.getDate());
-        entry.setCalories(entry.getCalories() + request.getCalories());
-        healthEntryRepository.save(entry);
+        applyBatches(List.of(batch), null);
+        return batch.savedMeals.get(0);
+    }
+    
+    /**
+     * Ingests a wearable sync batch. The user is resolved once, the dates that already have a
+     * row are found with one query, and all inserts and updates run in a single transaction so
+     * Hibernate can send the inserts as JDBC batches. If another writer creates one of the new
+     * days first, or the database stays busy past its timeout, the transaction is retried,
+     * with days that now exist on the update path. Derived state
+     * (rolling stats, leaderboard, anomaly scores, rollups, streak) is refreshed once after
+     * the commit from the committed rows.
+     */
+    public BatchResponse saveBatch(String username, BatchRequest request) {
+        PendingBatch batch = prepareBatch(getUser(username), request);
+        if (batch == null) {
+            return new BatchResponse(0, 0, 0, null, null);
+        }
         
-        return meal;
+        applyBatches(List.of(batch), null);
+        return new BatchResponse(batch.entries.size(), batch.meals.size(), batch.days.size(), batch.start, batch.end);
     }
     
-    public Map<String, Object> getSummary(String username) {
-        User user = getUser(username);
-        Target target = targetRepository.findByUser(user)
-                .orElseGet(() -> createDefaultTarget(user));
+    /**
+     * Applies batches for several users in one transaction, as {@link #saveBatch} does for
+     * one. {@code beforeCommit} runs inside that transaction after all rows are written, so
+     * callers can record their progress atomically with the data. Unknown user ids are skipped.
+     */
+    public void saveBatches(Map<Long, BatchRequest> requestsByUserId, Runnable beforeCommit) {
+        List<PendingBatch> batches = new ArrayList<>(requestsByUserId.size());
+        for (User user : userRepository.findAllById(requestsByUserId.keySet())) {
+            PendingBatch batch = prepareBatch(user, requestsByUserId.get(user.getId()));
+            if (batch != null) {
+                batches.add(batch);
+            }
+        }
+        applyBatches(batches, beforeCommit);
+    }
+    
+    private PendingBatch prepareBatch(User user, BatchRequest request) {
+        LocalDate today = LocalDate.now();
+        List<EntryRequest> entryRequests = request.getEntries() != null ? request.getEntries() : List.of();
+        List<MealRequest> mealRequests = request.getMeals() != null ? request.getMeals() : List.of();
         
-        List<HealthEntry> entries = getEntries(username, 14);
+        if (entryRequests.isEmpty() && mealRequests.isEmpty()) {
+            return null;
+        }
         
-        LocalDate today = LocalDate.now();
-        HealthEntry todayEntry = healthEntryRepository.findByUserAndDate(user, today)
-                .orElse(new HealthEntry(null, user, today, 0, 0, false, null));
+        LocalDate firstDate = null;
+        LocalDate lastDate = null;
+        for (EntryRequest entryRequest : entryRequests) {
+            if (entryRequest.getDate() == null) entryRequest.setDate(today);
+            firstDate = firstDate == null || entryRequest.getDate().isBefore(firstDate) ? entryRequest.getDate() : firstDate;
+            lastDate = lastDate == null || entryRequest.getDate().isAfter(lastDate) ? entryRequest.getDate() : lastDate;
+        }
+        for (MealRequest mealRequest : mealRequests) {
+            if (mealRequest.getDate() == null) mealRequest.setDate(today);
+            firstDate = firstDate == null || mealRequest.getDate().isBefore(firstDate) ? mealRequest.getDate() : firstDate;
+            lastDate = lastDate == null || mealRequest.getDate().isAfter(lastDate) ? mealRequest.getDate() : lastDate;
+        }
         
-        List<Meal> todayMeals = mealRepository.findByUserAndDate(user, today);
+        Set<LocalDate> existingDates = new HashSet<>(
+                healthEntryRepository.findDatesByUserAndDateBetween(user, firstDate, lastDate));
+        return new PendingBatch(user, entryRequests, mealRequests, firstDate, lastDate, existingDates);
+    }
+    
+    private void applyBatches(List<PendingBatch> batches, Runnable beforeCommit) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatches(batches, beforeCommit));
+                break;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                // Another writer inserted one of the new days first, or held the database
+                // past the busy timeout. Days that exist now take the update path next time.
+                if (attempt == MAX_BATCH_ATTEMPTS) throw e;
+                for (PendingBatch batch : batches) {
+                    batch.existingDates.clear();
+                    batch.existingDates.addAll(healthEntryRepository.findDatesByUserAndDateBetween(batch.user, batch.start, batch.end));
+                }
+            }
+        }
         
-        Map<String, Integer> targets = new HashMap<>();
-        targets.put("dailySteps", target.getDailyStepsGoal());
-        targets.put("dailyCalories", target.getDailyCaloriesGoal());
+        for (PendingBatch batch : batches) {
+            User user = batch.user;
+            Set<LocalDate> touched = batch.dates();
+            userWriteLocks.withLock(user.getId(), () -> {
+                batch.days.clear();
+                for (HealthEntry entry : healthEntryRepository.findByUserAndDateBetweenOrderByDateDesc(user, batch.start, batch.end)) {
+                    if (touched.contains(entry.getDate())) {
+                        batch.days.add(entry);
+                    }
+                }
+                
+                List<HealthEntry> scored = new ArrayList<>();
+                // Oldest first, so each day is scored against the batch's earlier days.
+                batch.days.sort(Comparator.comparing(HealthEntry::getDate));
+                for (HealthEntry day : batch.days) {
+                    seriesStore.record(user, day);
+                    rollingStatsService.record(user, day);
+                    forecastModelStore.record(user, day);
+                    leaderboardService.record(user.getId(), day);
+                    if (anomalyService.score(user, day)) {
+                        scored.add(day);
+                    }
+                }
+                anomalyService.save(scored);
+                for (HealthEntry day : scored) {
+                    seriesStore.record(user, day);
+                }
+                rollupService.refresh(user, touched);
+            });
+            // Only steps make a day active, so meals alone never move a streak.
+            if (!batch.entries.isEmpty()) {
+                streakService.recompute(user);
+            }
+            versionStamps.changed(user.getUsername());
+        }
+    }
+    
+    /**
+     * Inserts the batches' new days and meals, then applies each existing day's changes with
+     * the same single-statement UPDATE as {@link #upsertDay}, so concurrent writers to a day
+     * never overwrite each other's calories. All new rows are persisted before any statement
+     * runs: the table-based id generator commits on its own connection, which SQLite would
+     * block once this transaction has read or written.
+     */
+    private void writeBatches(List<PendingBatch> batches, Runnable beforeCommit) {
+        LocalTime now = LocalTime.now();
+        for (PendingBatch batch : batches) {
+            Map<LocalDate, HealthEntry> created = new HashMap<>();
+            for (LocalDate date : batch.dates()) {
+                if (!batch.existingDates.contains(date)) {
+                    created.put(date, newEntry(batch.user, date));
+                }
+            }
+            applyBatch(created, batch.entries, batch.meals);
+            
+            List<Meal> meals = new ArrayList<>(batch.meals.size());
+            for (MealRequest mealRequest : batch.meals) {
+                Meal meal = new Meal();
+                meal.setUser(batch.user);
+                meal.setDate(mealRequest.getDate());
+                meal.setTime(now);
+                meal.setName(mealRequest.getName());
+                meal.setCalories(mealRequest.getCalories());
+                meals.add(meal);
+            }
+            
+            healthEntryRepository.saveAll(created.values());
+            batch.savedMeals.clear();
+            batch.savedMeals.addAll(mealRepository.saveAll(meals));
+        }
+        // Surfaces a conflicting insert as a DataIntegrityViolationException here rather than
+        // at commit.
+        healthEntryRepository.flush();
+        
+        for (PendingBatch batch : batches) {
+            for (Map.Entry<LocalDate, DayUpdate> update : batch.updates().entrySet()) {
+                if (batch.existingDates.contains(update.getKey())) {
+                    applyDayUpdate(batch.user, update.getKey(), update.getValue().steps(), update.getValue().calories());
+                }
+            }
+        }
         
-        List<String> suggestions = mlService.generateAISuggestions(entries, targets);
+        if (beforeCommit != null) {
+            beforeCommit.run();
+        }
+    }
+    
+    /** A day's net change within a batch: the last steps value given, if any, and added calories. */
+    private record DayUpdate(Integer steps, int calories) {
+    }
+    
+    private static class PendingBatch {
+        final User user;
+        final List<EntryRequest> entries;
+        final List<MealRequest> meals;
+        final LocalDate start;
+        final LocalDate end;
+        final Set<LocalDate> existingDates;
+        final List<HealthEntry> days = new ArrayList<>();
+        final List<Meal> savedMeals = new ArrayList<>();
+        
+        PendingBatch(User user, List<EntryRequest> entries, List<MealRequest> meals,
+                     LocalDate start, LocalDate end, Set<LocalDate> existingDates) {
+            this.user = user;
+            this.entries = entries;
+            this.meals = meals;
+            this.start = start;
+            this.end = end;
+            this.existingDates = existingDates;
+        }
         
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("todaySteps", todayEntry.getSteps());
-        summary.put("todayCalories", todayEntry.getCalories());
-        summary.put("dailyStepsGoal", target.getDailyStepsGoal());
-        summary.put("dailyCaloriesGoal", target.getDailyCaloriesGoal());
-        summary.put("stepsProgress", calculateProgress(todayEntry.getSteps(), target.getDailyStepsGoal()));
-        summary.put("caloriesProgress", calculateProgress(todayEntry.getCalories(), target.getDailyCaloriesGoal()));
-        summary.put("currentStreak", user.getCurrentStreak());
-        summary.put("longestStreak", user.getLongestStreak());
-        summary.put("todayMeals", todayMeals);
-        summary.put("aiSuggestions", suggestions);
+        Set<LocalDate> dates() {
+            return updates().keySet();
+        }
         
-        return summary;
+        Map<LocalDate, DayUpdate> updates() {
+            Map<LocalDate, DayUpdate> updates = new TreeMap<>();
+            for (EntryRequest entryRequest : entries) {
+                DayUpdate previous = updates.get(entryRequest.getDate());
+                Integer steps = entryRequest.getSteps() != null ? entryRequest.getSteps() : previous != null ? previous.steps() : null;
+                int calories = (previous != null ? previous.calories() : 0)
+                        + (entryRequest.getCalories() != null ? entryRequest.getCalories() : 0);
+                updates.put(entryRequest.getDate(), new DayUpdate(steps, calories));
+            }
+            for (MealRequest mealRequest : meals) {
+                DayUpdate previous = updates.get(mealRequest.getDate());
+                updates.put(mealRequest.getDate(), new DayUpdate(previous != null ? previous.steps() : null,
+                        (previous != null ? previous.calories() : 0) + mealRequest.getCalories()));
+            }
+            return updates;
+        }
     }
     
-    public Map<String, Object> predict(String username, int days) {
+    /**
+     * Assembles the dashboard summary. Today's meals are fetched on the application task
+     * executor while the rest is read here: today's totals from the day's row, so they are
+     * never older than the last commit, and the trend window and goals from memory.
+     */
+    public SummaryResponse getSummary(String username) {
         User user = getUser(username);
-        List<HealthEntry> entries = healthEntryRepository.findByUserOrderByDateDesc(user);
+        LocalDate today = LocalDate.now();
         
-        if (entries.size() > 30) {
-            entries = entries.subList(0, 30);
-        }
+        CompletableFuture<List<Meal>> todayMeals = CompletableFuture.supplyAsync(
+                () -> mealRepository.findByUserAndDate(user, today), taskExecutor);
         
-        Collections.reverse(entries);
-        return mlService.predictNextDays(entries, days);
+        HealthEntry todayEntry = healthEntryRepository.findByUserAndDate(user, today).orElse(null);
+        int todaySteps = todayEntry != null ? todayEntry.getSteps() : 0;
+        int todayCalories = todayEntry != null ? todayEntry.getCalories() : 0;
+        
+        Target goals = getTarget(user);
+        List<String> suggestions = suggestionService.suggest(user, "summary", () -> SuggestionFeatures.of(
+                seriesStore.columns(user, today.minusDays(RollingStatsService.WINDOW_DAYS - 1), today).reversed(),
+                rollingStatsService.snapshot(user), goals.getDailyStepsGoal(), goals.getDailyCaloriesGoal()));
+        
+        return new SummaryResponse(
+                todaySteps,
+                todayCalories,
+                goals.getDailyStepsGoal(),
+                goals.getDailyCaloriesGoal(),
+                calculateProgress(todaySteps, goals.getDailyStepsGoal()),
+                calculateProgress(todayCalories, goals.getDailyCaloriesGoal()),
+                user.getCurrentStreak(),
+                user.getLongestStreak(),
+                join(todayMeals),
+                suggestions);
+    }
+    
+    @Transactional(readOnly = true)
+    public PredictionResponse predict(String username, int days) {
+        User user = getUser(username);
+        return mlService.predictNextDays(forecastModelStore.model(user), days);
     }
     
-    public List<Map<String, Object>> getLeaderboard(String username) {
+    @Transactional(readOnly = true)
+    public List<LeaderboardEntry> getLeaderboard(String username) {
         User currentUser = getUser(username);
-        List<Friend> friends = friendRepository.findByUser(currentUser);
         
         List<User> users = new ArrayList<>();
         users.add(currentUser);
-        users.addAll(friends.stream().map(Friend::getFriend).collect(Collectors.toList()));
+        users.addAll(friendRepository.findFriendUsers(currentUser));
         
-        LocalDate today = LocalDate.now();
-        LocalDate weekStart = today.minusDays(6);
-        
-        List<Map<String, Object>> leaderboard = new ArrayList<>();
+        List<LeaderboardService.Standing> standings = new ArrayList<>(users.size());
+        Integer[] order = new Integer[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            standings.add(leaderboardService.standing(users.get(i).getId()));
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(standings.get(b).weeklySteps(), standings.get(a).weeklySteps()));
         
-        for (User user : users) {
-            List<HealthEntry> entries = healthEntryRepository.findByUserAndDateBetweenOrderByDateDesc(user, weekStart, today);
-            
-            int totalSteps = entries.stream().mapToInt(HealthEntry::getSteps).sum();
-            int totalCalories = entries.stream().mapToInt(HealthEntry::getCalories).sum();
-            
-            HealthEntry todayEntry = healthEntryRepository.findByUserAndDate(user, today).orElse(null);
-            int todaySteps = todayEntry != null ? todayEntry.getSteps() : 0;
-            
-            Map<String, Object> userData = new HashMap<>();
-            userData.put("username", user.getUsername());
-            userData.put("displayName", user.getDisplayName());
-            userData.put("weeklySteps", totalSteps);
-            userData.put("weeklyCalories", totalCalories);
-            userData.put("todaySteps", todaySteps);
-            userData.put("currentStreak", user.getCurrentStreak());
-            userData.put("isCurrentUser", user.getId().equals(currentUser.getId()));
-            
-            leaderboard.add(userData);
+        List<LeaderboardEntry> leaderboard = new ArrayList<>(users.size());
+        for (int rank = 0; rank < order.length; rank++) {
+            leaderboard.add(toLeaderboardEntry(rank + 1, users.get(order[rank]), standings.get(order[rank]), currentUser));
         }
         
-        leaderboard.sort((a, b) -> Integer.compare((Integer) b.get("weeklySteps"), (Integer) a.get("weeklySteps")));
+        return leaderboard;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<LeaderboardEntry> getGlobalLeaderboard(String username, int limit) {
+        User currentUser = getUser(username);
+        List<LeaderboardService.Score> top = leaderboardService.top(limit);
         
-        for (int i = 0; i < leaderboard.size(); i++) {
-            leaderboard.get(i).put("rank", i + 1);
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllById(top.stream().map(LeaderboardService.Score::userId).collect(Collectors.toList()))) {
+            usersById.put(user.getId(), user);
+        }
+        
+        List<LeaderboardEntry> leaderboard = new ArrayList<>(top.size());
+        for (LeaderboardService.Score score : top) {
+            User user = usersById.get(score.userId());
+            if (user != null) {
+                leaderboard.add(toLeaderboardEntry(leaderboard.size() + 1, user, leaderboardService.standing(user.getId()), currentUser));
+            }
         }
         
         return leaderboard;
     }
     
+    private LeaderboardEntry toLeaderboardEntry(int rank, User user, LeaderboardService.Standing standing, User currentUser) {
+        return new LeaderboardEntry(
+                rank,
+                user.getUsername(),
+                user.getDisplayName(),
+                standing.weeklySteps(),
+                standing.weeklyCalories(),
+                standing.todaySteps(),
+                user.getCurrentStreak(),
+                user.getId().equals(currentUser.getId()));
+    }
+    
+    @Transactional(readOnly = true)
     public List<User> searchUsers(String query) {
         return userRepository.findByUsernameContainingIgnoreCase(query);
     }
     
     public Friend addFriend(String username, String friendUsername) {
         User user = getUser(username);
-        User friend = userRepository.findByUsername(friendUsername)
+        User friend = userCache.findOtherUser(friendUsername)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         if (user.getId().equals(friend.getId())) {
@@ -211,28 +491,26 @@ public class HealthService {
         friendship.setFriend(friend);
         friendship.setCreatedAt(java.time.LocalDateTime.now());
         
-        return friendRepository.save(friendship);
+        friendship = friendRepository.save(friendship);
+        versionStamps.changed(username);
+        return friendship;
     }
     
-    public List<Map<String, Object>> getFriendsActivity(String username) {
+    @Transactional(readOnly = true)
+    public List<FriendActivity> getFriendsActivity(String username) {
         User user = getUser(username);
         List<Friend> friends = friendRepository.findByUser(user);
         
         LocalDate today = LocalDate.now();
-        List<Map<String, Object>> activities = new ArrayList<>();
+        List<FriendActivity> activities = new ArrayList<>();
         
         for (Friend friendship : friends) {
             User friend = friendship.getFriend();
             HealthEntry todayEntry = healthEntryRepository.findByUserAndDate(friend, today).orElse(null);
             
             if (todayEntry != null && (todayEntry.getSteps() > 0 || todayEntry.getCalories() > 0)) {
-                Map<String, Object> activity = new HashMap<>();
-                activity.put("username", friend.getUsername());
-                activity.put("displayName", friend.getDisplayName());
-                activity.put("steps", todayEntry.getSteps());
-                activity.put("calories", todayEntry.getCalories());
-                activity.put("date", today.toString());
-                activities.add(activity);
+                activities.add(new FriendActivity(friend.getUsername(), friend.getDisplayName(),
+                        todayEntry.getSteps(), todayEntry.getCalories(), today));
             }
         }
         
@@ -243,7 +521,7 @@ public class HealthService {
         User user = getUser(username);
         
         // Find existing target or create new one WITHOUT saving it yet
-        Target target = targetRepository.findByUser(user)
+        Target target = userCache.findTarget(user)
                 .orElseGet(() -> {
                     Target newTarget = new Target();
                     newTarget.setUser(user);
@@ -269,102 +547,209 @@ public class HealthService {
         }
         
         // Save only once here
-        return targetRepository.save(target);
+        target = targetRepository.save(target);
+        userCache.invalidate(username);
+        versionStamps.changed(username);
+        return target;
     }
     
-    public Map<String, Object> getMonthlyReport(String username, int year, int month) {
+    /**
+     * Builds the monthly report from the month's rollups and the user's series; no entities
+     * are loaded. The full entry list is served separately by {@link #getReportEntries}.
+     */
+    @Transactional(readOnly = true)
+    public MonthlyReport getMonthlyReport(String username, int year, int month) {
         User user = getUser(username);
-        Target target = targetRepository.findByUser(user)
-                .orElseGet(() -> createDefaultTarget(user));
+        Target target = getTarget(user);
         
         YearMonth yearMonth = YearMonth.of(year, month);
         LocalDate startDate = yearMonth.atDay(1);
         LocalDate endDate = yearMonth.atEndOfMonth();
         
-        List<HealthEntry> entries = healthEntryRepository.findByUserAndDateBetweenOrderByDateDesc(user, startDate, endDate);
-        Collections.reverse(entries);
-        
-        int totalSteps = entries.stream().mapToInt(HealthEntry::getSteps).sum();
-        int totalCalories = entries.stream().mapToInt(HealthEntry::getCalories).sum();
-        int avgSteps = entries.isEmpty() ? 0 : totalSteps / entries.size();
-        int avgCalories = entries.isEmpty() ? 0 : totalCalories / entries.size();
-        
-        int maxSteps = entries.stream().mapToInt(HealthEntry::getSteps).max().orElse(0);
-        int minSteps = entries.stream().mapToInt(HealthEntry::getSteps).min().orElse(0);
-        
-        long anomalies = entries.stream().filter(HealthEntry::getIsAnomaly).count();
+        ActivityRollup rollup = rollupService.monthly(user, yearMonth);
+        List<ActivityRollup> weeks = rollupService.rollups(user, RollupPeriod.WEEK, startDate, endDate);
+        List<String> suggestions = suggestionService.suggest(user, "report:" + yearMonth, () -> SuggestionFeatures.of(
+                seriesStore.columns(user, startDate, endDate), WindowSnapshot.of(rollup),
+                target.getDailyStepsGoal(), target.getDailyCaloriesGoal()));
+        
+        int activeDays = rollup.getActiveDays();
+        return new MonthlyReport(
+                year,
+                month,
+                rollup.getTotalSteps(),
+                rollup.getTotalCalories(),
+                average(rollup.getTotalSteps(), activeDays),
+                average(rollup.getTotalCalories(), activeDays),
+                rollup.getMaxSteps(),
+                rollup.getMinSteps(),
+                activeDays,
+                rollup.getAnomalies(),
+                user.getCurrentStreak(),
+                weeks,
+                suggestions);
+    }
+    
+    @Transactional(readOnly = true)
+    public YearlyReport getYearlyReport(String username, int year) {
+        User user = getUser(username);
         
-        Map<String, Integer> targets = new HashMap<>();
-        targets.put("dailySteps", target.getDailyStepsGoal());
-        targets.put("dailyCalories", target.getDailyCaloriesGoal());
+        List<ActivityRollup> months = rollupService.rollups(user, RollupPeriod.MONTH,
+                LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 1));
+        
+        ActivityRollup total = new ActivityRollup();
+        for (ActivityRollup month : months) {
+            if (month.getActiveDays() == 0) continue;
+            if (total.getActiveDays() == 0) {
+                total.setMaxSteps(month.getMaxSteps());
+                total.setMinSteps(month.getMinSteps());
+            } else {
+                total.setMaxSteps(Math.max(total.getMaxSteps(), month.getMaxSteps()));
+                total.setMinSteps(Math.min(total.getMinSteps(), month.getMinSteps()));
+            }
+            total.setActiveDays(total.getActiveDays() + month.getActiveDays());
+            total.setTotalSteps(total.getTotalSteps() + month.getTotalSteps());
+            total.setTotalCalories(total.getTotalCalories() + month.getTotalCalories());
+            total.setAnomalies(total.getAnomalies() + month.getAnomalies());
+        }
         
-        List<String> suggestions = mlService.generateAISuggestions(entries, targets);
+        int activeDays = total.getActiveDays();
+        return new YearlyReport(
+                year,
+                total.getTotalSteps(),
+                total.getTotalCalories(),
+                average(total.getTotalSteps(), activeDays),
+                average(total.getTotalCalories(), activeDays),
+                total.getMaxSteps(),
+                total.getMinSteps(),
+                activeDays,
+                total.getAnomalies(),
+                user.getCurrentStreak(),
+                months);
+    }
+    
+    @Transactional(readOnly = true)
+    public ReportEntries getReportEntries(String username, int year, int month, int page, int size) {
+        User user = getUser(username);
         
-        Map<String, Object> report = new HashMap<>();
-        report.put("month", month);
-        report.put("year", year);
-        report.put("totalSteps", totalSteps);
-        report.put("totalCalories", totalCalories);
-        report.put("avgSteps", avgSteps);
-        report.put("avgCalories", avgCalories);
-        report.put("maxSteps", maxSteps);
-        report.put("minSteps", minSteps);
-        report.put("activeDays", entries.size());
-        report.put("anomalies", anomalies);
-        report.put("entries", entries);
-        report.put("aiSuggestions", suggestions);
-        report.put("currentStreak", user.getCurrentStreak());
+        YearMonth yearMonth = YearMonth.of(year, month);
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), Sort.by("date"));
+        Page<HealthEntry> entries = healthEntryRepository.findByUserAndDateBetween(
+                user, yearMonth.atDay(1), yearMonth.atEndOfMonth(), pageRequest);
         
-        return report;
+        return new ReportEntries(entries.getContent(), entries.getNumber(), entries.getSize(),
+                entries.getTotalElements(), entries.getTotalPages());
+    }
+    
+    private long average(long total, int days) {
+        return days == 0 ? 0 : total / days;
     }
     
     private User getUser(String username) {
-        return userRepository.findByUsername(username)
+        return userCache.findUser(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
     
+    private Target getTarget(User user) {
+        return userCache.findTarget(user)
+                .orElseGet(() -> createDefaultTarget(user));
+    }
+    
     private Target createDefaultTarget(User user) {
-        // Check if target already exists to prevent duplicates
-        Optional<Target> existing = targetRepository.findByUser(user);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
-        
         Target target = new Target();
         target.setUser(user);
         target.setDailyStepsGoal(10000);
         target.setWeeklyStepsGoal(70000);
         target.setDailyCaloriesGoal(2000);
         target.setWeeklyCaloriesGoal(14000);
-        return targetRepository.save(target);
+        return newTransaction.execute(status -> targetRepository.save(target));
     }
     
-    private int calculateProgress(int current, int goal) {
-        if (goal == 0) return 0;
-        return Math.min(100, (current * 100) / goal);
+    /**
+     * Updates the user's day row in place with a single UPDATE, so concurrent writers never
+     * overwrite each other's calories. The row is only inserted when the UPDATE finds nothing;
+     * if another writer inserts it first, the unique (user_id, date) constraint rejects the
+     * second insert and the update is applied to the winner's row instead.
+     */
+    private void upsertDay(User user, LocalDate date, Integer steps, int calories) {
+        if (applyDayUpdate(user, date, steps, calories) == 0) {
+            HealthEntry entry = newEntry(user, date);
+            entry.setSteps(steps != null ? steps : 0);
+            entry.setCalories(calories);
+            try {
+                healthEntryRepository.saveAndFlush(entry);
+            } catch (DataIntegrityViolationException e) {
+                applyDayUpdate(user, date, steps, calories);
+            }
+        }
     }
     
-    private void updateStreak(User user) {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-        
-        HealthEntry todayEntry = healthEntryRepository.findByUserAndDate(user, today).orElse(null);
-        
-        if (todayEntry != null && todayEntry.getSteps() > 0) {
-            if (user.getLastActivityDate() == null) {
-                user.setCurrentStreak(1);
-            } else if (user.getLastActivityDate().toLocalDate().equals(yesterday)) {
-                user.setCurrentStreak(user.getCurrentStreak() + 1);
-            } else if (!user.getLastActivityDate().toLocalDate().equals(today)) {
-                user.setCurrentStreak(1);
-            }
+    private int applyDayUpdate(User user, LocalDate date, Integer steps, int calories) {
+        return steps != null
+                ? healthEntryRepository.setStepsAndAddCalories(user.getId(), date, steps, calories)
+                : healthEntryRepository.addCalories(user.getId(), date, calories);
+    }
+    
+    /**
+     * Refreshes derived state for a day after its write committed, from the row as it is now
+     * rather than as this writer left it. Returns that row.
+     */
+    private HealthEntry onEntryChanged(User user, LocalDate date) {
+        return userWriteLocks.withLock(user.getId(), () -> {
+            HealthEntry entry = healthEntryRepository.findByUserAndDate(user, date)
+                    .orElseThrow(() -> new RuntimeException("Entry not found"));
+            seriesStore.record(user, entry);
+            rollingStatsService.record(user, entry);
+            forecastModelStore.record(user, entry);
+            leaderboardService.record(user.getId(), entry);
             
-            if (user.getCurrentStreak() > user.getLongestStreak()) {
-                user.setLongestStreak(user.getCurrentStreak());
+            if (anomalyService.score(user, entry)) {
+                anomalyService.save(List.of(entry));
+                seriesStore.record(user, entry);
+            }
+            rollupService.refresh(user, List.of(date));
+            return entry;
+        });
+    }
+    
+    private void applyBatch(Map<LocalDate, HealthEntry> entriesByDate, List<EntryRequest> entryRequests, List<MealRequest> mealRequests) {
+        for (EntryRequest entryRequest : entryRequests) {
+            HealthEntry entry = entriesByDate.get(entryRequest.getDate());
+            if (entry == null) continue;
+            if (entryRequest.getSteps() != null) {
+                entry.setSteps(entryRequest.getSteps());
+            }
+            if (entryRequest.getCalories() != null) {
+                entry.setCalories(entry.getCalories() + entryRequest.getCalories());
+            }
+        }
+        for (MealRequest mealRequest : mealRequests) {
+            HealthEntry entry = entriesByDate.get(mealRequest.getDate());
+            if (entry != null) {
+                entry.setCalories(entry.getCalories() + mealRequest.getCalories());
             }
-            
-            user.setLastActivityDate(java.time.LocalDateTime.now());
-            userRepository.save(user);
         }
     }
-}
\ No newline at end of file
+    
+    private HealthEntry newEntry(User user, LocalDate date) {
+        HealthEntry entry = new HealthEntry();
+        entry.setUser(user);
+        entry.setDate(date);
+        return entry;
+    }
+    
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private int calculateProgress(int current, int goal) {
+        if (goal == 0) return 0;
+        return Math.min(100, (current * 100) / goal);
+    }
+}
@@ -0,0 +1,284 @@
+package com.healthtracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtracker.dto.BatchRequest;
+import com.healthtracker.dto.EntryRequest;
+import com.healthtracker.dto.IngestReceipt;
+import com.healthtracker.dto.MealRequest;
+import com.healthtracker.ingest.HealthEvent;
+import com.healthtracker.ingest.WriteAheadLog;
+import com.healthtracker.model.IngestCheckpoint;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.IngestCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead ingestion for entries and meals, enabled with {@code ingest.wal.enabled=true}.
+ * Writes are acknowledged as soon as they are appended to the {@link WriteAheadLog}; a single
+ * applier thread drains them in groups of up to {@code ingest.wal.batch-size} events and
+ * commits each group with {@link HealthService#saveBatches} in one transaction, together with
+ * the log checkpoint. Events not yet applied when the process stops are replayed on startup.
+ * <p>
+ * At most {@code ingest.wal.queue-capacity} events wait to be applied; a write that finds
+ * no room within {@code ingest.wal.offer-timeout-ms} is rejected rather than logged. A group
+ * that fails {@code ingest.wal.max-attempts} times is retried one event at a time, and an
+ * event that still fails that often is quarantined to {@value #REJECTED_FILE} in the log
+ * directory and skipped, so one bad event cannot stall the applier.
+ */
+@Service
+@ConditionalOnProperty(name = "ingest.wal.enabled", havingValue = "true")
+public class IngestService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IngestService.class);
+    
+    private static final String REJECTED_FILE = "rejected.jsonl";
+    
+    // Meal.name maps to the default varchar(255).
+    private static final int MAX_MEAL_NAME_LENGTH = 255;
+    
+    @Autowired
+    private HealthService healthService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private IngestCheckpointRepository ingestCheckpointRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${ingest.wal.dir:wal}")
+    private String directory;
+    
+    @Value("${ingest.wal.segment-bytes:16777216}")
+    private int segmentBytes;
+    
+    @Value("${ingest.wal.force:false}")
+    private boolean force;
+    
+    @Value("${ingest.wal.batch-size:5000}")
+    private int batchSize;
+    
+    @Value("${ingest.wal.queue-capacity:100000}")
+    private int queueCapacity;
+    
+    @Value("${ingest.wal.offer-timeout-ms:1000}")
+    private long offerTimeoutMillis;
+    
+    @Value("${ingest.wal.max-attempts:5}")
+    private int maxAttempts;
+    
+    private WriteAheadLog writeAheadLog;
+    private BlockingQueue<HealthEvent> pending;
+    private Semaphore queueSlots;
+    private Thread applier;
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void open() throws IOException {
+        writeAheadLog = new WriteAheadLog(Path.of(directory), segmentBytes, force);
+        List<HealthEvent> recovered = writeAheadLog.open(appliedSequence());
+        
+        // Replayed events take slots too, so new writes wait until the backlog drains below
+        // the capacity.
+        pending = new LinkedBlockingQueue<>();
+        queueSlots = new Semaphore(queueCapacity - recovered.size());
+        pending.addAll(recovered);
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} events from the write-ahead log", recovered.size());
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        applier = new Thread(this::applyLoop, "wal-applier");
+        applier.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (applier != null) {
+            applier.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        writeAheadLog.close();
+    }
+    
+    public IngestReceipt submitEntry(String username, EntryRequest request) {
+        User user = getUser(username);
+        if (request.getSteps() != null && request.getSteps() < 0) {
+            throw new RuntimeException("Steps cannot be negative");
+        }
+        int calories = request.getCalories() != null ? request.getCalories() : 0;
+        return submit(HealthEvent.Type.ENTRY, user, request.getDate(), request.getSteps(), calories, null);
+    }
+    
+    public IngestReceipt submitMeal(String username, MealRequest request) {
+        User user = getUser(username);
+        if (request.getName() == null || request.getName().isBlank() || request.getCalories() == null) {
+            throw new RuntimeException("Meal name and calories are required");
+        }
+        // Checked here because a row the database rejects would be retried and then quarantined
+        // long after the write was acknowledged.
+        if (request.getName().length() > MAX_MEAL_NAME_LENGTH) {
+            throw new RuntimeException("Meal name must be at most " + MAX_MEAL_NAME_LENGTH + " characters");
+        }
+        return submit(HealthEvent.Type.MEAL, user, request.getDate(), null, request.getCalories(), request.getName());
+    }
+    
+    private IngestReceipt submit(HealthEvent.Type type, User user, LocalDate date, Integer steps, int calories, String name) {
+        // The slot is taken before appending, so an event in the log always has room in the
+        // queue and the lock below never waits on the applier.
+        try {
+            if (!queueSlots.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Ingest queue is full, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing write");
+        }
+        try {
+            // Appending and enqueueing under one lock keeps the queue in sequence order.
+            synchronized (this) {
+                HealthEvent event = writeAheadLog.append(type, user.getId(), date, steps, calories, name);
+                pending.add(event);
+                return new IngestReceipt(event.sequence());
+            }
+        } catch (IOException e) {
+            queueSlots.release();
+            throw new RuntimeException("Failed to write to ingest log", e);
+        }
+    }
+    
+    private void applyLoop() {
+        List<HealthEvent> batch = new ArrayList<>();
+        int failures = 0;
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    HealthEvent first = pending.poll(1, TimeUnit.SECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    pending.drainTo(batch, batchSize - 1);
+                    queueSlots.release(batch.size());
+                }
+                if (failures < maxAttempts) {
+                    apply(batch);
+                } else {
+                    applyEach(batch);
+                }
+                batch.clear();
+                failures = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failures++;
+                log.error("Failed to apply {} ingested events (attempt {}), retrying", batch.size(), failures, e);
+                // The group may have committed before the failure; never apply it twice.
+                long applied = appliedSequence();
+                batch.removeIf(event -> event.sequence() <= applied);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Applies a group that keeps failing one event at a time, quarantining each event that
+     * fails {@code maxAttempts} times on its own.
+     */
+    private void applyEach(List<HealthEvent> events) throws IOException, InterruptedException {
+        for (Iterator<HealthEvent> it = events.iterator(); it.hasNext(); ) {
+            HealthEvent event = it.next();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    apply(List.of(event));
+                    break;
+                } catch (Exception e) {
+                    if (event.sequence() <= appliedSequence()) break;
+                    if (attempt < maxAttempts) {
+                        Thread.sleep(1000);
+                        continue;
+                    }
+                    quarantine(event, e);
+                    break;
+                }
+            }
+            it.remove();
+        }
+    }
+    
+    private void quarantine(HealthEvent event, Exception cause) throws IOException {
+        log.error("Skipping ingested event {} after {} failed attempts, saved to {}",
+                event.sequence(), maxAttempts, REJECTED_FILE, cause);
+        Files.writeString(Path.of(directory, REJECTED_FILE), objectMapper.writeValueAsString(event) + "\n",
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        ingestCheckpointRepository.save(new IngestCheckpoint(IngestCheckpoint.WRITE_AHEAD_LOG, event.sequence()));
+        writeAheadLog.release(event.sequence());
+    }
+    
+    private void apply(List<HealthEvent> events) throws IOException {
+        if (events.isEmpty()) return;
+        
+        Map<Long, BatchRequest> requests = new LinkedHashMap<>();
+        for (HealthEvent event : events) {
+            BatchRequest request = requests.computeIfAbsent(event.userId(), id -> new BatchRequest());
+            if (event.type() == HealthEvent.Type.ENTRY) {
+                EntryRequest entry = new EntryRequest();
+                entry.setDate(event.date());
+                entry.setSteps(event.steps());
+                entry.setCalories(event.calories());
+                request.getEntries().add(entry);
+            } else {
+                MealRequest meal = new MealRequest();
+                meal.setDate(event.date());
+                meal.setName(event.name());
+                meal.setCalories(event.calories());
+                request.getMeals().add(meal);
+            }
+        }
+        
+        long lastSequence = events.get(events.size() - 1).sequence();
+        healthService.saveBatches(requests, () -> ingestCheckpointRepository.save(
+                new IngestCheckpoint(IngestCheckpoint.WRITE_AHEAD_LOG, lastSequence)));
+        writeAheadLog.release(lastSequence);
+    }
+    
+    private long appliedSequence() {
+        return ingestCheckpointRepository.findById(IngestCheckpoint.WRITE_AHEAD_LOG)
+                .map(IngestCheckpoint::getAppliedSequence)
+                .orElse(0L);
+    }
+    
+    private User getUser(String username) {
+        return userCache.findUser(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+}
@@ -0,0 +1,204 @@
+package com.healthtracker.service;
+
+import com.healthtracker.dto.DailyActivity;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.repository.HealthEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Materialized weekly leaderboard. Every user with activity in the last seven days has a
+ * rolling total that is updated on write and indexed by score, so ranking a friend list
+ * or reading the global top N never touches the database.
+ * <p>
+ * Every change to a user's totals, including rolling the window forward on a read, reindexes
+ * their score under the totals' monitor. Updates share the read side of {@code rebuildLock}
+ * and {@link #rebuild} takes the write side, so a rebuild never interleaves with them.
+ */
+@Service
+public class LeaderboardService {
+    
+    public static final int WINDOW_DAYS = 7;
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    private final Map<Long, WeeklyTotals> totalsByUser = new ConcurrentHashMap<>();
+    
+    private final NavigableSet<Score> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Score::weeklySteps).reversed().thenComparingLong(Score::userId));
+    
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    
+    public record Score(long userId, long weeklySteps) {
+    }
+    
+    public record Standing(long weeklySteps, long weeklyCalories, long todaySteps) {
+        static final Standing EMPTY = new Standing(0, 0, 0);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            LocalDate today = LocalDate.now();
+            Map<Long, WeeklyTotals> rebuilt = new HashMap<>();
+            for (DailyActivity day : healthEntryRepository.findDailyActivityBetween(today.minusDays(WINDOW_DAYS - 1), today)) {
+                rebuilt.computeIfAbsent(day.userId(), id -> new WeeklyTotals(today.toEpochDay()))
+                        .set(day.date().toEpochDay(), valueOf(day.steps()), valueOf(day.calories()));
+            }
+            
+            totalsByUser.clear();
+            ranking.clear();
+            rebuilt.forEach((userId, totals) -> {
+                totalsByUser.put(userId, totals);
+                ranking.add(new Score(userId, totals.weeklySteps));
+            });
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+    
+    public void record(Long userId, HealthEntry entry) {
+        long today = LocalDate.now().toEpochDay();
+        long day = entry.getDate().toEpochDay();
+        if (day > today || day <= today - WINDOW_DAYS) {
+            return;
+        }
+        
+        rebuildLock.readLock().lock();
+        try {
+            while (true) {
+                WeeklyTotals totals = totalsByUser.computeIfAbsent(userId, id -> new WeeklyTotals(today));
+                synchronized (totals) {
+                    // rollWindow may have dropped this user's totals since they were looked up.
+                    if (totalsByUser.get(userId) != totals) continue;
+                    Score before = new Score(userId, totals.weeklySteps);
+                    totals.rollTo(today);
+                    // Another thread may have rolled the window past midnight after today was
+                    // read; the day's slot then belongs to a newer day.
+                    if (!totals.covers(day)) return;
+                    totals.set(day, valueOf(entry.getSteps()), valueOf(entry.getCalories()));
+                    reindex(before, new Score(userId, totals.weeklySteps));
+                    return;
+                }
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+    
+    public Standing standing(Long userId) {
+        rebuildLock.readLock().lock();
+        try {
+            WeeklyTotals totals = totalsByUser.get(userId);
+            if (totals == null) {
+                return Standing.EMPTY;
+            }
+            synchronized (totals) {
+                Score before = new Score(userId, totals.weeklySteps);
+                totals.rollTo(LocalDate.now().toEpochDay());
+                if (totals.weeklySteps != before.weeklySteps()) {
+                    reindex(before, new Score(userId, totals.weeklySteps));
+                }
+                return new Standing(totals.weeklySteps, totals.weeklyCalories, totals.todaySteps());
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+    
+    public List<Score> top(int limit) {
+        List<Score> top = new ArrayList<>(limit);
+        for (Score score : ranking) {
+            if (top.size() == limit) break;
+            top.add(score);
+        }
+        return top;
+    }
+    
+    @Scheduled(cron = "0 0 0 * * *")
+    public void rollWindow() {
+        long today = LocalDate.now().toEpochDay();
+        rebuildLock.readLock().lock();
+        try {
+            totalsByUser.forEach((userId, totals) -> {
+                synchronized (totals) {
+                    Score before = new Score(userId, totals.weeklySteps);
+                    totals.rollTo(today);
+                    if (totals.isEmpty()) {
+                        ranking.remove(before);
+                        totalsByUser.remove(userId, totals);
+                    } else {
+                        reindex(before, new Score(userId, totals.weeklySteps));
+                    }
+                }
+            });
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+    
+    /** Callers hold the user's totals monitor, so each user's scores are swapped in order. */
+    private void reindex(Score before, Score after) {
+        ranking.remove(before);
+        ranking.add(after);
+    }
+    
+    private int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+    
+    private static class WeeklyTotals {
+        private final int[] steps = new int[WINDOW_DAYS];
+        private final int[] calories = new int[WINDOW_DAYS];
+        private long latestDay;
+        private long weeklySteps;
+        private long weeklyCalories;
+        
+        WeeklyTotals(long latestDay) {
+            this.latestDay = latestDay;
+        }
+        
+        void set(long day, int daySteps, int dayCalories) {
+            int slot = slot(day);
+            weeklySteps += daySteps - steps[slot];
+            weeklyCalories += dayCalories - calories[slot];
+            steps[slot] = daySteps;
+            calories[slot] = dayCalories;
+        }
+        
+        void rollTo(long day) {
+            for (long d = Math.max(latestDay + 1, day - WINDOW_DAYS + 1); d <= day; d++) {
+                set(d, 0, 0);
+            }
+            latestDay = Math.max(latestDay, day);
+        }
+        
+        boolean covers(long day) {
+            return day > latestDay - WINDOW_DAYS && day <= latestDay;
+        }
+        
+        int todaySteps() {
+            return steps[slot(latestDay)];
+        }
+        
+        boolean isEmpty() {
+            return weeklySteps == 0 && weeklyCalories == 0;
+        }
+        
+        private int slot(long day) {
+            return (int) Math.floorMod(day, (long) WINDOW_DAYS);
+        }
+    }
+}
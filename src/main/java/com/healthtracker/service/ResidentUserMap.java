@@ -0,0 +1,68 @@
+package com.healthtracker.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-user analytics state that is loaded on first use and bounded the way
+ * {@link SeriesStore} bounds its series: once more than {@code maxUsers} users are resident,
+ * the least recently used are dropped and reload from the database on their next use.
+ * <p>
+ * Writers record into a value while holding the user's {@link UserWriteLocks} lock, after
+ * their commit, and a missing value is loaded under that same lock. A load therefore never
+ * overlaps a writer: either the writer recorded first, into the value it loaded itself or
+ * one still resident, or it finds the value just loaded and records into that. A writer's
+ * value is the most recently used one, so eviction does not drop it while the write is fresh.
+ */
+class ResidentUserMap<V> {
+    
+    private static final class Resident<V> {
+        final V value;
+        volatile long lastAccess = System.nanoTime();
+        
+        Resident(V value) {
+            this.value = value;
+        }
+    }
+    
+    private final Map<Long, Resident<V>> byUser = new ConcurrentHashMap<>();
+    
+    private final int maxUsers;
+    
+    private final UserWriteLocks userWriteLocks;
+    
+    ResidentUserMap(int maxUsers, UserWriteLocks userWriteLocks) {
+        this.maxUsers = maxUsers;
+        this.userWriteLocks = userWriteLocks;
+    }
+    
+    V get(Long userId, Function<Long, V> loader) {
+        Resident<V> resident = byUser.get(userId);
+        if (resident == null) {
+            resident = userWriteLocks.withLock(userId,
+                    () -> byUser.computeIfAbsent(userId, id -> new Resident<>(loader.apply(id))));
+        }
+        resident.lastAccess = System.nanoTime();
+        if (byUser.size() > maxUsers) {
+            evict();
+        }
+        return resident.value;
+    }
+    
+    private synchronized void evict() {
+        int excess = byUser.size() - maxUsers;
+        if (excess <= 0) return;
+        
+        // Drop a tenth of the capacity at once so eviction does not run on every access.
+        List<Map.Entry<Long, Resident<V>>> resident = new ArrayList<>(byUser.entrySet());
+        resident.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        int toEvict = Math.min(resident.size(), excess + maxUsers / 10);
+        for (int i = 0; i < toEvict; i++) {
+            byUser.remove(resident.get(i).getKey(), resident.get(i).getValue());
+        }
+    }
+}
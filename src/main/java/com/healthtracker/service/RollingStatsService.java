@@ -0,0 +1,61 @@
+package com.healthtracker.service;
+
+import com.healthtracker.analytics.DailyWindowStats;
+import com.healthtracker.analytics.WindowSnapshot;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.HealthEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps a {@link DailyWindowStats} per user, seeded from the database on first use and
+ * fed by every write afterwards, so reads never rescan entry lists.
+ */
+@Service
+public class RollingStatsService {
+    
+    public static final int WINDOW_DAYS = 14;
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private UserWriteLocks userWriteLocks;
+    
+    @Value("${analytics.max-resident-users:5000}")
+    private int maxResidentUsers;
+    
+    private ResidentUserMap<DailyWindowStats> statsByUser;
+    
+    @PostConstruct
+    public void init() {
+        statsByUser = new ResidentUserMap<>(maxResidentUsers, userWriteLocks);
+    }
+    
+    public void record(User user, HealthEntry entry) {
+        stats(user).record(entry.getDate(), entry.getSteps(), entry.getCalories());
+    }
+    
+    public WindowSnapshot snapshot(User user) {
+        return stats(user).snapshot(LocalDate.now());
+    }
+    
+    private DailyWindowStats stats(User user) {
+        return statsByUser.get(user.getId(), id -> load(user));
+    }
+    
+    private DailyWindowStats load(User user) {
+        LocalDate today = LocalDate.now();
+        DailyWindowStats stats = new DailyWindowStats(WINDOW_DAYS);
+        stats.snapshot(today);
+        for (HealthEntry entry : healthEntryRepository.findByUserAndDateBetweenOrderByDateDesc(user, today.minusDays(WINDOW_DAYS - 1), today)) {
+            stats.record(entry.getDate(), entry.getSteps(), entry.getCalories());
+        }
+        return stats;
+    }
+}
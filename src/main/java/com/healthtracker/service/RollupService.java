@@ -0,0 +1,217 @@
+package com.healthtracker.service;
+
+import com.healthtracker.analytics.EntryAggregate;
+import com.healthtracker.analytics.EntryColumns;
+import com.healthtracker.model.ActivityRollup;
+import com.healthtracker.model.RollupPeriod;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.ActivityRollupRepository;
+import com.healthtracker.repository.HealthEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Maintains weekly and monthly {@link ActivityRollup} rows. Writers call {@link #refresh}
+ * with the days they touched and only the weeks and months containing those days are
+ * recomputed. Reads never write: a period without a row is returned as an empty rollup, and
+ * rows for entries written before rollups existed are created once by {@link #backfill}.
+ */
+@Service
+public class RollupService {
+    
+    @Autowired
+    private ActivityRollupRepository activityRollupRepository;
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private SeriesStore seriesStore;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        // Refreshes run once the writer's transaction has committed, so the writes never join
+        // a transaction a caller may still have open.
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    public void refresh(User user, Collection<LocalDate> dates) {
+        if (dates.isEmpty()) return;
+        
+        Set<RollupKey> keys = new HashSet<>();
+        for (LocalDate date : dates) {
+            for (RollupPeriod period : RollupPeriod.values()) {
+                keys.add(new RollupKey(period, period.start(date)));
+            }
+        }
+        rebuild(user, keys);
+    }
+    
+    public ActivityRollup monthly(User user, YearMonth month) {
+        LocalDate start = month.atDay(1);
+        return rollups(user, RollupPeriod.MONTH, start, start).get(0);
+    }
+    
+    /**
+     * Creates the rollups missing for days the user already has entries on, such as entries
+     * written before rollups were maintained. Returns the number created.
+     */
+    public int backfill(User user) {
+        Set<RollupKey> present = new HashSet<>();
+        for (ActivityRollup rollup : activityRollupRepository.findByUser(user)) {
+            present.add(RollupKey.of(rollup));
+        }
+        Set<RollupKey> missing = new HashSet<>();
+        for (LocalDate date : healthEntryRepository.findDatesByUser(user)) {
+            for (RollupPeriod period : RollupPeriod.values()) {
+                RollupKey key = new RollupKey(period, period.start(date));
+                if (!present.contains(key)) {
+                    missing.add(key);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            rebuild(user, missing);
+        }
+        return missing.size();
+    }
+    
+    /**
+     * Returns one rollup per {@code period} starting between {@code from} and {@code to},
+     * oldest first. Periods with no stored rollup have no entries, so they are returned as
+     * empty rollups that are not saved.
+     */
+    public List<ActivityRollup> rollups(User user, RollupPeriod period, LocalDate from, LocalDate to) {
+        LocalDate first = period.start(from);
+        LocalDate last = period.start(to);
+        Map<LocalDate, ActivityRollup> byStart = new HashMap<>();
+        for (ActivityRollup rollup : activityRollupRepository
+                .findByUserAndPeriodAndPeriodStartBetweenOrderByPeriodStart(user, period, first, last)) {
+            byStart.put(rollup.getPeriodStart(), rollup);
+        }
+        
+        List<ActivityRollup> rollups = new ArrayList<>();
+        for (LocalDate start = first; !start.isAfter(last); start = period.end(start).plusDays(1)) {
+            ActivityRollup rollup = byStart.get(start);
+            rollups.add(rollup != null ? rollup : newRollup(user, new RollupKey(period, start)));
+        }
+        return rollups;
+    }
+    
+    private Collection<ActivityRollup> rebuild(User user, Set<RollupKey> keys) {
+        try {
+            return recompute(user, keys);
+        } catch (DataIntegrityViolationException e) {
+            // Another writer created one of these rollups first; the second pass updates it.
+            return recompute(user, keys);
+        }
+    }
+    
+    /**
+     * Recomputes the given rollups from the user's series over the span they cover. New rollups are
+     * persisted before the existing ones are read inside the transaction, for the same
+     * SQLite locking reason as {@link HealthService#saveBatch}; existing ones are updated
+     * through dirty checking, so unchanged rows are not written. Returns the computed rollups.
+     */
+    private Collection<ActivityRollup> recompute(User user, Set<RollupKey> keys) {
+        LocalDate start = null;
+        LocalDate end = null;
+        Map<RollupKey, ActivityRollup> computed = new HashMap<>();
+        for (RollupKey key : keys) {
+            LocalDate keyEnd = key.period().end(key.start());
+            start = start == null || key.start().isBefore(start) ? key.start() : start;
+            end = end == null || keyEnd.isAfter(end) ? keyEnd : end;
+            computed.put(key, newRollup(user, key));
+        }
+        
+        EntryColumns columns = seriesStore.columns(user, start, end);
+        for (Map.Entry<RollupKey, ActivityRollup> rollup : computed.entrySet()) {
+            RollupKey key = rollup.getKey();
+            int from = columns.indexOf(key.start());
+            int to = columns.indexOf(key.period().end(key.start()).plusDays(1));
+            setTotals(rollup.getValue(), columns.aggregate(from, to));
+        }
+        
+        Set<RollupKey> existing = new HashSet<>();
+        for (ActivityRollup rollup : activityRollupRepository.findByUserAndPeriodStartBetween(user, start, end)) {
+            existing.add(RollupKey.of(rollup));
+        }
+        
+        LocalDate rangeStart = start;
+        LocalDate rangeEnd = end;
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ActivityRollup> created = new ArrayList<>();
+            for (Map.Entry<RollupKey, ActivityRollup> rollup : computed.entrySet()) {
+                if (!existing.contains(rollup.getKey())) {
+                    created.add(rollup.getValue());
+                }
+            }
+            activityRollupRepository.saveAll(created);
+            
+            if (!existing.isEmpty()) {
+                for (ActivityRollup rollup : activityRollupRepository.findByUserAndPeriodStartBetween(user, rangeStart, rangeEnd)) {
+                    RollupKey key = RollupKey.of(rollup);
+                    if (existing.contains(key) && computed.containsKey(key)) {
+                        copyTotals(computed.get(key), rollup);
+                    }
+                }
+            }
+        });
+        return computed.values();
+    }
+    
+    private ActivityRollup newRollup(User user, RollupKey key) {
+        ActivityRollup rollup = new ActivityRollup();
+        rollup.setUser(user);
+        rollup.setPeriod(key.period());
+        rollup.setPeriodStart(key.start());
+        return rollup;
+    }
+    
+    private void setTotals(ActivityRollup rollup, EntryAggregate totals) {
+        rollup.setActiveDays(totals.count());
+        rollup.setTotalSteps(totals.stepsSum());
+        rollup.setTotalCalories(totals.caloriesSum());
+        rollup.setMaxSteps(totals.stepsMax());
+        rollup.setMinSteps(totals.stepsMin());
+        rollup.setMaxCalories(totals.caloriesMax());
+        rollup.setMinCalories(totals.caloriesMin());
+        rollup.setAnomalies(totals.anomalies());
+        rollup.setStepsSquares(totals.stepsSumSquares());
+        rollup.setCaloriesSquares(totals.caloriesSumSquares());
+    }
+    
+    private void copyTotals(ActivityRollup from, ActivityRollup to) {
+        to.setActiveDays(from.getActiveDays());
+        to.setTotalSteps(from.getTotalSteps());
+        to.setTotalCalories(from.getTotalCalories());
+        to.setMaxSteps(from.getMaxSteps());
+        to.setMinSteps(from.getMinSteps());
+        to.setMaxCalories(from.getMaxCalories());
+        to.setMinCalories(from.getMinCalories());
+        to.setAnomalies(from.getAnomalies());
+        to.setStepsSquares(from.getStepsSquares());
+        to.setCaloriesSquares(from.getCaloriesSquares());
+    }
+    
+    private record RollupKey(RollupPeriod period, LocalDate start) {
+        static RollupKey of(ActivityRollup rollup) {
+            return new RollupKey(rollup.getPeriod(), rollup.getPeriodStart());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.healthtracker.service;
+
+import com.healthtracker.analytics.DailySeries;
+import com.healthtracker.analytics.EntryColumns;
+import com.healthtracker.dto.DailyMetrics;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.HealthEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds a {@link DailySeries} per user so analytics read primitive columns instead of
+ * {@link HealthEntry} entities. A series is loaded from a projection query on first use and
+ * updated by every write afterwards; once more than {@code series.max-users} series are
+ * resident the least recently read ones are dropped and reload on demand.
+ * <p>
+ * Writers record while holding the user's {@link UserWriteLocks} lock and series load under
+ * the same lock, in the same way as {@link ResidentUserMap}.
+ */
+@Service
+public class SeriesStore {
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private UserWriteLocks userWriteLocks;
+    
+    @Value("${series.max-users:5000}")
+    private int maxUsers;
+    
+    private final Map<Long, DailySeries> seriesByUser = new ConcurrentHashMap<>();
+    
+    /**
+     * Applies a committed entry to the user's series, loading the series first if it is not
+     * resident. Callers hold the user's write lock. The write path reads the series right
+     * afterwards in any case, and a series left unloaded here could later be loaded by a
+     * reader whose transaction began before this commit.
+     */
+    public void record(User user, HealthEntry entry) {
+        series(user).set(entry.getDate(), entry.getSteps(), entry.getCalories(), Boolean.TRUE.equals(entry.getIsAnomaly()));
+    }
+    
+    public EntryColumns columns(User user, LocalDate from, LocalDate to) {
+        return series(user).columns(from, to);
+    }
+    
+    public EntryColumns latest(User user, int days) {
+        return series(user).latest(days, LocalDate.now());
+    }
+    
+    private DailySeries series(User user) {
+        DailySeries series = seriesByUser.get(user.getId());
+        if (series == null) {
+            series = userWriteLocks.withLock(user.getId(),
+                    () -> seriesByUser.computeIfAbsent(user.getId(), id -> load(user)));
+        }
+        series.touch();
+        if (seriesByUser.size() > maxUsers) {
+            evict();
+        }
+        return series;
+    }
+    
+    private DailySeries load(User user) {
+        DailySeries series = new DailySeries();
+        for (DailyMetrics day : healthEntryRepository.findDailyMetrics(user)) {
+            series.set(day.date(),
+                    day.steps() != null ? day.steps() : 0,
+                    day.calories() != null ? day.calories() : 0,
+                    Boolean.TRUE.equals(day.isAnomaly()));
+        }
+        return series;
+    }
+    
+    private synchronized void evict() {
+        int excess = seriesByUser.size() - maxUsers;
+        if (excess <= 0) return;
+        
+        // Drop a tenth of the capacity at once so eviction does not run on every read.
+        List<Map.Entry<Long, DailySeries>> resident = new ArrayList<>(seriesByUser.entrySet());
+        resident.sort(Comparator.comparingLong(e -> e.getValue().getLastAccess()));
+        int toEvict = Math.min(resident.size(), excess + maxUsers / 10);
+        for (int i = 0; i < toEvict; i++) {
+            seriesByUser.remove(resident.get(i).getKey(), resident.get(i).getValue());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.healthtracker.service;
+
+import com.healthtracker.analytics.StreakCalculator;
+import com.healthtracker.analytics.StreakCalculator.Streaks;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.HealthEntryRepository;
+import com.healthtracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintains {@code currentStreak}, {@code longestStreak} and {@code lastActivityDate} on
+ * {@link User}. New days extend the stored streak in O(1); backfilled or removed activity
+ * triggers a full recompute from the user's active dates. Both run under the user's write
+ * lock against the stored row and write back only the streak columns. Every write path
+ * keeps streaks current, so the nightly job only zeroes streaks that lapsed without new
+ * activity.
+ */
+@Service
+public class StreakService {
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private VersionStamps versionStamps;
+    
+    @Autowired
+    private UserWriteLocks userWriteLocks;
+    
+    public void recordDay(User user, LocalDate date, boolean active) {
+        userWriteLocks.withLock(user.getId(), () -> {
+            User stored = stored(user);
+            LocalDate today = LocalDate.now();
+            Streaks streaks = null;
+            if (active) {
+                streaks = StreakCalculator.extend(storedStreaks(stored), date, today);
+            }
+            if (streaks == null) {
+                streaks = StreakCalculator.compute(healthEntryRepository.findActiveDates(user), today);
+            }
+            save(stored, streaks);
+        });
+    }
+    
+    public void recompute(User user) {
+        userWriteLocks.withLock(user.getId(), () -> save(stored(user),
+                StreakCalculator.compute(healthEntryRepository.findActiveDates(user), LocalDate.now())));
+    }
+    
+    /**
+     * Zeroes the current streak of every user whose last active day is before yesterday, in
+     * one statement. A user who becomes active meanwhile no longer matches and is left alone.
+     */
+    @Scheduled(cron = "0 5 0 * * *")
+    public void expireLapsedStreaks() {
+        LocalDateTime cutoff = LocalDate.now().minusDays(1).atStartOfDay();
+        List<String> usernames = userRepository.findUsernamesWithLapsedStreaks(cutoff);
+        if (usernames.isEmpty()) return;
+        
+        userRepository.clearLapsedStreaks(cutoff);
+        for (String username : usernames) {
+            userCache.invalidate(username);
+            versionStamps.changed(username);
+        }
+    }
+    
+    private User stored(User user) {
+        return userRepository.findById(user.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+    
+    private Streaks storedStreaks(User user) {
+        LocalDate last = user.getLastActivityDate() != null ? user.getLastActivityDate().toLocalDate() : null;
+        return new Streaks(valueOf(user.getCurrentStreak()), valueOf(user.getLongestStreak()), last);
+    }
+    
+    private void save(User user, Streaks streaks) {
+        if (streaks.equals(storedStreaks(user))) return;
+        userRepository.updateStreaks(user.getId(), streaks.current(), streaks.longest(),
+                streaks.lastActiveDate() != null ? streaks.lastActiveDate().atStartOfDay() : null);
+        userCache.invalidate(user.getUsername());
+    }
+    
+    private int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
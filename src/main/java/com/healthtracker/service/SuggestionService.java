@@ -0,0 +1,98 @@
+package com.healthtracker.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtracker.analytics.SuggestionFeatures;
+import com.healthtracker.analytics.SuggestionRules;
+import com.healthtracker.model.User;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Produces the suggestions shown on the dashboard and in reports from the rules in
+ * {@code suggestions.rules}, compiled once at startup. The last suggestions for each user and
+ * view are kept with the user's {@link VersionStamps} tag, and reused without computing any
+ * features until the tag moves. At most {@code suggestions.cache.max-size} entries are kept,
+ * least recently used first out. Nothing is cached while version stamps are disabled, since
+ * the tags then miss writes made on other nodes.
+ */
+@Service
+public class SuggestionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(SuggestionService.class);
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private VersionStamps versionStamps;
+    
+    @Value("${suggestions.rules:classpath:suggestion-rules.json}")
+    private Resource rulesResource;
+    
+    @Value("${suggestions.cache.max-size:10000}")
+    private int cacheMaxSize;
+    
+    private SuggestionRules rules;
+    
+    private Map<Key, Cached> cache;
+    
+    private record Key(Long userId, String view) {
+    }
+    
+    private record Cached(String tag, List<String> suggestions) {
+    }
+    
+    @PostConstruct
+    public void init() throws IOException {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                return size() > cacheMaxSize;
+            }
+        };
+        try (InputStream in = rulesResource.getInputStream()) {
+            rules = SuggestionRules.compile(objectMapper.readValue(in, new TypeReference<List<SuggestionRules.Definition>>() {}));
+        }
+        log.info("Compiled {} suggestion rules from {}", rules.size(), rulesResource.getDescription());
+    }
+    
+    /**
+     * Returns the suggestions for one of the user's views, such as the dashboard or a given
+     * month's report. {@code features} is only called when nothing is cached for the view at
+     * the user's current tag.
+     */
+    public List<String> suggest(User user, String view, Supplier<SuggestionFeatures> features) {
+        if (!versionStamps.isEnabled()) {
+            return List.copyOf(rules.evaluate(features.get()));
+        }
+        
+        // Read before the features, so a write that lands while they are computed moves the
+        // tag past the one stored with them.
+        String tag = versionStamps.userTag(user.getUsername());
+        Key key = new Key(user.getId(), view);
+        synchronized (cache) {
+            Cached cached = cache.get(key);
+            if (cached != null && cached.tag().equals(tag)) {
+                return cached.suggestions();
+            }
+        }
+        List<String> suggestions = List.copyOf(rules.evaluate(features.get()));
+        synchronized (cache) {
+            cache.put(key, new Cached(tag, suggestions));
+        }
+        return suggestions;
+    }
+}
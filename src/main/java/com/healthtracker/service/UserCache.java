@@ -0,0 +1,167 @@
+package com.healthtracker.service;
+
+import com.healthtracker.model.Target;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.TargetRepository;
+import com.healthtracker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, TTL-evicting cache of {@link User} and {@link Target} rows keyed by username.
+ * Least recently used entries are dropped once {@code cache.users.max-size} is reached.
+ * The cache holds private snapshots and hands every caller its own copy, so a request that
+ * modifies its user or target (streak updates, goal changes) never leaks partial changes
+ * into other requests or the cache. Writers invalidate the entry after saving.
+ */
+@Service
+public class UserCache {
+    
+    private static final Logger log = LoggerFactory.getLogger(UserCache.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TargetRepository targetRepository;
+    
+    private final long ttlMillis;
+    
+    private final Map<String, CachedUser> entries;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+    
+    private static class CachedUser {
+        final User user;
+        final long expiresAt;
+        volatile Target target;
+        
+        CachedUser(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    public UserCache(@Value("${cache.users.max-size:10000}") int maxSize,
+                     @Value("${cache.users.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /** Looks up the requesting user. */
+    public Optional<User> findUser(String username) {
+        return findUser(username, true);
+    }
+    
+    /**
+     * Looks up a user other than the requester, such as a new friend. Served from the same
+     * cache but kept out of the hit and miss counts, which describe requester lookups.
+     */
+    public Optional<User> findOtherUser(String username) {
+        return findUser(username, false);
+    }
+    
+    public Optional<Target> findTarget(User user) {
+        CachedUser cached = lookup(user.getUsername());
+        Target cachedTarget = cached != null ? cached.target : null;
+        if (cachedTarget != null) {
+            hits.incrementAndGet();
+            return Optional.of(copy(cachedTarget, user));
+        }
+        
+        misses.incrementAndGet();
+        Optional<Target> target = targetRepository.findByUser(user);
+        if (cached != null) {
+            target.ifPresent(t -> cached.target = copy(t, t.getUser()));
+        }
+        return target;
+    }
+    
+    private Optional<User> findUser(String username, boolean counted) {
+        CachedUser cached = lookup(username);
+        if (cached != null) {
+            if (counted) hits.incrementAndGet();
+            return Optional.of(copy(cached.user));
+        }
+        
+        if (counted) misses.incrementAndGet();
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(u -> store(username, new CachedUser(copy(u), System.currentTimeMillis() + ttlMillis)));
+        return user;
+    }
+    
+    public void invalidate(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+    
+    public Stats getStats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${cache.users.stats-interval-ms:300000}")
+    public void logStats() {
+        Stats stats = getStats();
+        log.info("User cache: size={}, hits={}, misses={}, evictions={}, hitRate={}",
+                stats.size(), stats.hits(), stats.misses(), stats.evictions(), String.format("%.2f", stats.hitRate()));
+    }
+    
+    private CachedUser lookup(String username) {
+        synchronized (entries) {
+            CachedUser cached = entries.get(username);
+            if (cached != null && cached.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(username);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return cached;
+        }
+    }
+    
+    private static User copy(User user) {
+        return new User(user.getId(), user.getUsername(), user.getPassword(), user.getEmail(),
+                user.getDisplayName(), user.getCreatedAt(), user.getCurrentStreak(), user.getLongestStreak(),
+                user.getLastActivityDate());
+    }
+    
+    private static Target copy(Target target, User user) {
+        return new Target(target.getId(), user, target.getDailyStepsGoal(), target.getWeeklyStepsGoal(),
+                target.getDailyCaloriesGoal(), target.getWeeklyCaloriesGoal());
+    }
+    
+    private void store(String username, CachedUser cached) {
+        synchronized (entries) {
+            entries.put(username, cached);
+        }
+    }
+}
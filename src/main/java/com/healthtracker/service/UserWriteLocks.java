@@ -0,0 +1,46 @@
+package com.healthtracker.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Orders the refresh of a user's derived state after a commit. The in-memory stores take
+ * whatever row snapshot they are given, so two writers whose commits land in one order
+ * could otherwise publish their snapshots in the other and leave the older one in place.
+ * Refreshes instead run under the user's lock and re-read the committed rows first: whoever
+ * holds the lock last has read the latest commit.
+ * <p>
+ * Locks are striped over a fixed array, so users may share a lock but the count never grows.
+ */
+@Service
+public class UserWriteLocks {
+    
+    private static final int STRIPES = 256;
+    
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    
+    public UserWriteLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+    
+    public <T> T withLock(Long userId, Supplier<T> action) {
+        ReentrantLock lock = locks[Math.floorMod(userId.hashCode(), STRIPES)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void withLock(Long userId, Runnable action) {
+        withLock(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
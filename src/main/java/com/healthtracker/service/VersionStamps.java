@@ -0,0 +1,65 @@
+package com.healthtracker.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version stamps behind the ETags on the read endpoints. Each user has a stamp that
+ * is bumped whenever their data changes; a global stamp moves with every change and covers
+ * views that mix several users, such as leaderboards.
+ * <p>
+ * Writers call {@link #changed} once the write and the derived state it refreshes are
+ * visible, so a tag is never paired with a response older than the data it stands for.
+ * Stamps start from the boot time, so tags issued before a restart never match afterwards.
+ * Tags also carry the current day, since several views depend on today's date.
+ * <p>
+ * Stamps live in this process only, so they are correct for a single node. Behind a load
+ * balancer each node would stamp changes made elsewhere late or never and answer with a
+ * stale 304; such deployments, like the postgres profile, set {@code http.etag.enabled=false}
+ * and serve every read in full.
+ */
+@Service
+public class VersionStamps {
+    
+    @Value("${http.etag.enabled:true}")
+    private boolean enabled;
+    
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    
+    private final Map<String, Long> userStamps = new ConcurrentHashMap<>();
+    
+    private final long started = clock.get();
+    
+    private volatile long anyChanged = started;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void changed(String username) {
+        long stamp = clock.incrementAndGet();
+        userStamps.put(username, stamp);
+        anyChanged = stamp;
+    }
+    
+    /** Tag for views built only from {@code username}'s own data. */
+    public String userTag(String username) {
+        return tag(username, userStamps.getOrDefault(username, started));
+    }
+    
+    /** Tag for views that include other users' data. */
+    public String globalTag(String username) {
+        return tag(username, anyChanged);
+    }
+    
+    private String tag(String username, long stamp) {
+        // The username is part of the tag because browsers cache by URL, not by credentials.
+        return "\"" + Integer.toHexString(username.hashCode()) + "-" + Long.toHexString(stamp)
+                + "-" + Long.toHexString(LocalDate.now().toEpochDay()) + "\"";
+    }
+}
@@ -2,6 +2,7 @@ const API_BASE = window.location.origin + '/api';
 let authToken = localStorage.getItem('authToken');
 let currentUser = JSON.parse(localStorage.getItem('currentUser') || '{}');
 let charts = {};
+let reportEntries = [];
 
 function showToast(message, type = 'success') {
     const container = document.getElementById('toast-container');
@@ -557,7 +558,11 @@ async function generateReport() {
     const [year, month] = monthInput.split('-');
     
     try {
-        const report = await apiCall(`/monthly-report?year=${year}&month=${month}`);
+        const [report, entryPage] = await Promise.all([
+            apiCall(`/monthly-report?year=${year}&month=${month}`),
+            apiCall(`/monthly-report/entries?year=${year}&month=${month}&size=31`)
+        ]);
+        reportEntries = entryPage.entries;
         
         const container = document.getElementById('report-container');
         container.innerHTML = `
@@ -613,7 +618,7 @@ async function generateReport() {
             suggestionsDiv.appendChild(div);
         });
         
-        renderMonthlyChart(report.entries);
+        renderMonthlyChart(reportEntries);
         showToast('Report generated successfully!');
     } catch (error) {
         showToast('Failed to generate report: ' + error.message, 'error');
@@ -694,7 +699,7 @@ function downloadReportPDF(report) {
 }
 
 function downloadReportCSV(report) {
-    const csv = Papa.unparse(report.entries.map(e => ({
+    const csv = Papa.unparse(reportEntries.map(e => ({
         Date: e.date,
         Steps: e.steps,
         Calories: e.calories,
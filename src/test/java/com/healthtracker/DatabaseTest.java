@@ -0,0 +1,48 @@
+package com.healthtracker;
+
+import com.healthtracker.model.User;
+import com.healthtracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Runs the application against a fresh SQLite file under {@code target/}, shared by every
+ * test class extending this one so the context is built once. Tests create their own users
+ * and leave the sample data alone.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public abstract class DatabaseTest {
+    
+    private static final String DATABASE = "target/test-db/healthtracker-" + UUID.randomUUID() + ".db";
+    
+    @Autowired
+    protected UserRepository userRepository;
+    
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        new java.io.File(DATABASE).getParentFile().mkdirs();
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + DATABASE);
+        registry.add("ingest.wal.dir", () -> "target/test-db/wal-" + UUID.randomUUID());
+        // Statistics let tests count the statements a service issues; the per-session log is noise.
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        registry.add("logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener", () -> "WARN");
+    }
+    
+    protected User newUser() {
+        String name = "test_" + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("x");
+        user.setDisplayName(name);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setCurrentStreak(0);
+        user.setLongestStreak(0);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,137 @@
+package com.healthtracker.analytics;
+
+import com.healthtracker.model.HealthEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnomalyDetectorTest {
+    
+    private static final int BASELINE_DAYS = 14;
+    private static final int MIN_BASELINE_DAYS = 5;
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    
+    @Test
+    void headScoresMatchBruteForceOverThePrecedingDays() {
+        Random random = new Random(3);
+        AnomalyDetector detector = new AnomalyDetector(BASELINE_DAYS, MIN_BASELINE_DAYS);
+        TreeMap<LocalDate, int[]> days = new TreeMap<>();
+        LocalDate head = START;
+        for (int step = 0; step < 5_000; step++) {
+            int daySteps = random.nextInt(10) == 0 ? 30_000 : 6_000 + random.nextInt(4_000);
+            int dayCalories = 1_800 + random.nextInt(600);
+            int move = random.nextInt(10);
+            LocalDate date;
+            if (move < 6) {
+                // Usually the next day, sometimes after a gap longer than the baseline.
+                date = head.plusDays(random.nextInt(20) == 0 ? BASELINE_DAYS + 3 : 1 + random.nextInt(2));
+            } else if (move < 8) {
+                date = head;
+            } else {
+                date = head.minusDays(1 + random.nextInt(BASELINE_DAYS + 5));
+            }
+            days.put(date, new int[] {daySteps, dayCalories});
+            
+            AnomalyScore score = detector.record(date, daySteps, dayCalories);
+            if (date.isBefore(head)) {
+                assertNull(score);
+                continue;
+            }
+            head = date;
+            assertScore(expected(days, date), score, date);
+        }
+    }
+    
+    @Test
+    void shortBaselinesAreNotScored() {
+        AnomalyDetector detector = new AnomalyDetector(BASELINE_DAYS, MIN_BASELINE_DAYS);
+        for (int i = 0; i < MIN_BASELINE_DAYS; i++) {
+            AnomalyScore score = detector.record(START.plusDays(i), 8_000, 2_000);
+            assertFalse(score.isScored());
+            assertFalse(score.isAnomaly());
+            assertNull(score.type());
+        }
+        assertTrue(detector.record(START.plusDays(MIN_BASELINE_DAYS), 8_000, 2_000).isScored());
+    }
+    
+    @Test
+    void spikesBeyondTheThresholdAreFlaggedByMetric() {
+        AnomalyDetector detector = new AnomalyDetector(BASELINE_DAYS, MIN_BASELINE_DAYS);
+        for (int i = 0; i < BASELINE_DAYS; i++) {
+            detector.record(START.plusDays(i), 8_000 + 100 * (i % 5), 2_000 + 10 * (i % 3));
+        }
+        LocalDate day = START.plusDays(BASELINE_DAYS);
+        
+        AnomalyScore normal = detector.record(day, 8_150, 2_010);
+        assertTrue(normal.isScored());
+        assertFalse(normal.isAnomaly());
+        
+        AnomalyScore high = detector.record(day, 20_000, 2_010);
+        assertTrue(high.value() > AnomalyScore.THRESHOLD);
+        assertEquals("HIGH_STEPS", high.type());
+        
+        AnomalyScore low = detector.record(day, 8_150, 500);
+        assertEquals("LOW_CALORIES", low.type());
+    }
+    
+    @Test
+    void offHeadScoringUsesTheGivenBaseline() {
+        AnomalyDetector detector = new AnomalyDetector(BASELINE_DAYS, MIN_BASELINE_DAYS);
+        List<HealthEntry> entries = new ArrayList<>();
+        TreeMap<LocalDate, int[]> days = new TreeMap<>();
+        for (int i = 0; i < 10; i++) {
+            HealthEntry entry = new HealthEntry();
+            entry.setDate(START.plusDays(i));
+            entry.setSteps(7_000 + 250 * i);
+            entry.setCalories(2_000 - 30 * i);
+            entries.add(entry);
+            days.put(entry.getDate(), new int[] {entry.getSteps(), entry.getCalories()});
+        }
+        LocalDate day = START.plusDays(10);
+        days.put(day, new int[] {12_000, 2_500});
+        
+        AnomalyScore score = detector.score(EntryColumns.of(entries), 12_000, 2_500);
+        assertScore(expected(days, day), score, day);
+    }
+    
+    /** Brute-force score of {@code date} against the days recorded in its baseline window. */
+    private static AnomalyScore expected(TreeMap<LocalDate, int[]> days, LocalDate date) {
+        List<Integer> steps = new ArrayList<>();
+        List<Integer> calories = new ArrayList<>();
+        for (Map.Entry<LocalDate, int[]> day : days.subMap(date.minusDays(BASELINE_DAYS), true, date, false).entrySet()) {
+            steps.add(day.getValue()[0]);
+            calories.add(day.getValue()[1]);
+        }
+        if (steps.size() < MIN_BASELINE_DAYS) {
+            return AnomalyScore.UNSCORED;
+        }
+        int[] today = days.get(date);
+        return new AnomalyScore(score(steps, today[0]), score(calories, today[1]));
+    }
+    
+    private static double score(List<Integer> baseline, int value) {
+        double median = MedianWindowTest.median(baseline);
+        double mad = MedianWindowTest.mad(baseline);
+        double spread = mad > 0 ? 1.4826 * mad : 1.2533 * MedianWindowTest.meanDeviation(baseline);
+        return spread > 0 ? (value - median) / spread : 0;
+    }
+    
+    private static void assertScore(AnomalyScore expected, AnomalyScore actual, LocalDate date) {
+        assertEquals(expected.isScored(), actual.isScored(), date::toString);
+        if (!expected.isScored()) return;
+        assertEquals(expected.steps(), actual.steps(), 1e-6, date::toString);
+        assertEquals(expected.calories(), actual.calories(), 1e-6, date::toString);
+        assertEquals(expected.isAnomaly(), actual.isAnomaly(), date::toString);
+        assertEquals(expected.type(), actual.type(), date::toString);
+    }
+}
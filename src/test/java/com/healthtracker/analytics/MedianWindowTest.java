@@ -0,0 +1,85 @@
+package com.healthtracker.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MedianWindowTest {
+    
+    @Test
+    void matchesBruteForceUnderRandomAddsAndRemoves() {
+        Random random = new Random(42);
+        MedianWindow window = new MedianWindow(30);
+        List<Integer> values = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            if (!values.isEmpty() && (values.size() == 30 || random.nextInt(3) == 0)) {
+                window.remove(values.remove(random.nextInt(values.size())));
+            } else {
+                // A narrow range, so duplicates and zero spread come up often.
+                int value = random.nextBoolean() ? random.nextInt(8) : random.nextInt(20_000) - 5_000;
+                window.add(value);
+                values.add(value);
+            }
+            
+            assertEquals(values.size(), window.size());
+            assertEquals(median(values), window.median(), 1e-9);
+            assertEquals(mad(values), window.mad(), 1e-9, () -> "MAD of " + values);
+            assertEquals(meanDeviation(values), window.meanDeviation(), 1e-6);
+        }
+    }
+    
+    @Test
+    void emptyWindowReadsZero() {
+        MedianWindow window = new MedianWindow(4);
+        window.add(7);
+        window.remove(7);
+        assertEquals(0, window.median());
+        assertEquals(0, window.mad());
+        assertEquals(0, window.baseline().score(100));
+    }
+    
+    @Test
+    void removingAnAbsentValueFails() {
+        MedianWindow window = new MedianWindow(4);
+        window.add(1);
+        assertThrows(IllegalStateException.class, () -> window.remove(2));
+    }
+    
+    @Test
+    void baselineFallsBackToMeanDeviationWhenMostValuesAreEqual() {
+        MedianWindow window = new MedianWindow(5);
+        for (int value : new int[] {100, 100, 100, 100, 140}) {
+            window.add(value);
+        }
+        RobustBaseline baseline = window.baseline();
+        assertEquals(0, baseline.mad());
+        assertEquals(8, baseline.meanDeviation(), 1e-9);
+        assertEquals(100 / (1.2533 * 8), baseline.score(200), 1e-9);
+    }
+    
+    static double median(List<Integer> values) {
+        if (values.isEmpty()) return 0;
+        double[] sorted = values.stream().mapToDouble(Integer::doubleValue).sorted().toArray();
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+    
+    static double mad(List<Integer> values) {
+        if (values.isEmpty()) return 0;
+        double median = median(values);
+        double[] deviations = values.stream().mapToDouble(v -> Math.abs(v - median)).sorted().toArray();
+        int mid = deviations.length / 2;
+        return deviations.length % 2 == 1 ? deviations[mid] : (deviations[mid - 1] + deviations[mid]) / 2;
+    }
+    
+    static double meanDeviation(List<Integer> values) {
+        if (values.isEmpty()) return 0;
+        double median = median(values);
+        return values.stream().mapToDouble(v -> Math.abs(v - median)).average().orElse(0);
+    }
+}
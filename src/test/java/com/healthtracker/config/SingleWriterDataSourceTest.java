@@ -0,0 +1,94 @@
+package com.healthtracker.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sqlite.SQLiteDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleWriterDataSourceTest {
+    
+    private static final int MAX_WAITING = 64;
+    
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    @Test
+    void requestsBeyondTheWaitingCapFailImmediately() throws Exception {
+        SingleWriterDataSource dataSource = new SingleWriterDataSource(memory(), 30_000, MAX_WAITING);
+        Connection held = dataSource.getConnection();
+        
+        List<Future<Boolean>> waiters = new ArrayList<>();
+        for (int i = 0; i < MAX_WAITING; i++) {
+            waiters.add(connect(dataSource));
+        }
+        awaitWaiting(dataSource, MAX_WAITING);
+        
+        long started = System.nanoTime();
+        Future<?> rejected = connect(dataSource);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, failure.getCause());
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+        
+        // Once the writer is released the queued requests all get their turn.
+        held.close();
+        for (Future<Boolean> waiter : waiters) {
+            assertFalse(waiter.get(10, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    void theHolderReentersWhileOtherWritersTimeOut() throws Exception {
+        SingleWriterDataSource dataSource = new SingleWriterDataSource(memory(), 100, 1);
+        try (Connection outer = dataSource.getConnection();
+             Connection inner = dataSource.getConnection()) {
+            assertFalse(inner.isClosed());
+            
+            Future<?> other = connect(dataSource);
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> other.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(SQLException.class, failure.getCause());
+        }
+        dataSource.getConnection().close();
+    }
+    
+    private Future<Boolean> connect(SingleWriterDataSource dataSource) {
+        return pool.submit(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return connection.isClosed();
+            }
+        });
+    }
+    
+    private static SQLiteDataSource memory() {
+        SQLiteDataSource target = new SQLiteDataSource();
+        target.setUrl("jdbc:sqlite::memory:");
+        return target;
+    }
+    
+    private static void awaitWaiting(SingleWriterDataSource dataSource, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (dataSource.waiting() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Only " + dataSource.waiting() + " threads waiting");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
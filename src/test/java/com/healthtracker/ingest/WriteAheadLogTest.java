@@ -0,0 +1,75 @@
+package com.healthtracker.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+    
+    private static final LocalDate DAY = LocalDate.of(2024, 2, 29);
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void eventsRoundTripIncludingEmptyAndMissingFields() throws IOException {
+        List<HealthEvent> written = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 16, false)) {
+            assertTrue(log.open(0).isEmpty());
+            written.add(log.append(HealthEvent.Type.ENTRY, 1, DAY, 8000, 2100, null));
+            written.add(log.append(HealthEvent.Type.ENTRY, 1, DAY, null, 300, null));
+            written.add(log.append(HealthEvent.Type.ENTRY, 2, DAY.minusDays(400), 0, 0, null));
+            written.add(log.append(HealthEvent.Type.MEAL, 1, DAY, null, 450, ""));
+            written.add(log.append(HealthEvent.Type.MEAL, 3, DAY, null, 120, "Crème brûlée"));
+            written.add(log.append(HealthEvent.Type.ENTRY, Long.MAX_VALUE, DAY, Integer.MAX_VALUE, -5, null));
+        }
+        
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 16, false)) {
+            assertEquals(written, log.open(0));
+        }
+    }
+    
+    @Test
+    void replayResumesAfterAppliedSequenceAcrossSegments() throws IOException {
+        List<HealthEvent> written = new ArrayList<>();
+        // Small segments, so the events span several files.
+        try (WriteAheadLog log = new WriteAheadLog(directory, 256, false)) {
+            log.open(0);
+            for (int i = 0; i < 40; i++) {
+                written.add(log.append(HealthEvent.Type.MEAL, i, DAY.plusDays(i), null, i, "Meal " + i));
+            }
+        }
+        
+        try (WriteAheadLog log = new WriteAheadLog(directory, 256, false)) {
+            assertEquals(written.subList(25, 40), log.open(written.get(24).sequence()));
+            HealthEvent next = log.append(HealthEvent.Type.ENTRY, 1, DAY, 1, 1, null);
+            assertEquals(written.get(39).sequence() + 1, next.sequence());
+            
+            log.release(written.get(24).sequence());
+        }
+        
+        try (WriteAheadLog log = new WriteAheadLog(directory, 256, false)) {
+            List<HealthEvent> replayed = log.open(written.get(24).sequence());
+            assertEquals(written.subList(25, 40), replayed.subList(0, 15));
+            assertEquals(16, replayed.size());
+        }
+    }
+    
+    @Test
+    void stepsSentinelIsRejected() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 16, false)) {
+            log.open(0);
+            assertThrows(IllegalArgumentException.class,
+                    () -> log.append(HealthEvent.Type.ENTRY, 1, DAY, Integer.MIN_VALUE, 0, null));
+        }
+    }
+}
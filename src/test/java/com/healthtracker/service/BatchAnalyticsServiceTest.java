@@ -0,0 +1,74 @@
+package com.healthtracker.service;
+
+import com.healthtracker.DatabaseTest;
+import com.healthtracker.dto.BatchRequest;
+import com.healthtracker.dto.EntryRequest;
+import com.healthtracker.model.Forecast;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.ForecastRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchAnalyticsServiceTest extends DatabaseTest {
+    
+    private static final int USERS = 40;
+    
+    @Autowired
+    private BatchAnalyticsService batchAnalyticsService;
+    
+    @Autowired
+    private HealthService healthService;
+    
+    @Autowired
+    private ForecastRepository forecastRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void forecastsAreWrittenWithoutSelectingEachRow() {
+        LocalDate today = LocalDate.now();
+        // Scores whatever other tests and the sample data left unscored, so the counted runs
+        // below only write forecasts.
+        batchAnalyticsService.run(today);
+        
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = newUser();
+            BatchRequest request = new BatchRequest();
+            for (int day = 1; day <= 10; day++) {
+                EntryRequest entry = new EntryRequest();
+                entry.setDate(today.minusDays(day));
+                entry.setSteps(5000 + 100 * i + day);
+                entry.setCalories(2000);
+                request.getEntries().add(entry);
+            }
+            healthService.saveBatch(user.getUsername(), request);
+            users.add(user);
+        }
+        
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int run = 0; run < 2; run++) {
+            // The first run creates every forecast, the second updates them.
+            statistics.clear();
+            batchAnalyticsService.run(today);
+            
+            long statements = statistics.getPrepareStatementCount();
+            assertTrue(statements < USERS, "run " + run + " prepared " + statements + " statements");
+            for (User user : users) {
+                Forecast forecast = forecastRepository.findById(user.getId()).orElseThrow();
+                assertEquals(today.plusDays(1), forecast.getForecastDate());
+            }
+        }
+    }
+}
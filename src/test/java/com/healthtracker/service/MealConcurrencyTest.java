@@ -0,0 +1,69 @@
+package com.healthtracker.service;
+
+import com.healthtracker.DatabaseTest;
+import com.healthtracker.dto.MealRequest;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.HealthEntryRepository;
+import com.healthtracker.repository.MealRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MealConcurrencyTest extends DatabaseTest {
+    
+    private static final int MEALS = 1000;
+    
+    @Autowired
+    private HealthService healthService;
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private MealRepository mealRepository;
+    
+    @Test
+    void parallelMealsAllReachTheDayTotal() throws Exception {
+        User user = newUser();
+        // A day with no row yet, so the first writers also race on creating it.
+        LocalDate date = LocalDate.now().minusDays(3);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> posts = new ArrayList<>();
+            for (int i = 0; i < MEALS; i++) {
+                int calories = i % 7 + 1;
+                posts.add(pool.submit(() -> {
+                    MealRequest request = new MealRequest();
+                    request.setDate(date);
+                    request.setName("meal");
+                    request.setCalories(calories);
+                    healthService.saveMeal(user.getUsername(), request);
+                }));
+            }
+            for (Future<?> post : posts) {
+                post.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        
+        int expected = 0;
+        for (int i = 0; i < MEALS; i++) {
+            expected += i % 7 + 1;
+        }
+        HealthEntry day = healthEntryRepository.findByUserAndDate(user, date).orElseThrow();
+        assertEquals(expected, day.getCalories());
+        assertEquals(0, day.getSteps());
+        assertEquals(MEALS, mealRepository.findByUserAndDate(user, date).size());
+    }
+}
@@ -0,0 +1,140 @@
+package com.healthtracker.service;
+
+import com.healthtracker.DatabaseTest;
+import com.healthtracker.dto.BatchRequest;
+import com.healthtracker.dto.EntryRequest;
+import com.healthtracker.dto.MealRequest;
+import com.healthtracker.model.ActivityRollup;
+import com.healthtracker.model.HealthEntry;
+import com.healthtracker.model.RollupPeriod;
+import com.healthtracker.model.User;
+import com.healthtracker.repository.ActivityRollupRepository;
+import com.healthtracker.repository.HealthEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RollupServiceTest extends DatabaseTest {
+    
+    private static final int DAYS = 80;
+    
+    @Autowired
+    private HealthService healthService;
+    
+    @Autowired
+    private RollupService rollupService;
+    
+    @Autowired
+    private HealthEntryRepository healthEntryRepository;
+    
+    @Autowired
+    private ActivityRollupRepository activityRollupRepository;
+    
+    @Test
+    void rollupsMatchRawEntriesAfterWrites() {
+        User user = newUser();
+        LocalDate today = LocalDate.now();
+        Random random = new Random(7);
+        
+        BatchRequest initial = new BatchRequest();
+        for (int i = 1; i <= DAYS; i++) {
+            initial.getEntries().add(entry(today.minusDays(i), 1 + random.nextInt(20000), random.nextInt(3000)));
+        }
+        healthService.saveBatch(user.getUsername(), initial);
+        
+        // Rewrite some days and add meals to others, so rollups are refreshed, not just created.
+        BatchRequest updates = new BatchRequest();
+        for (int i = 1; i <= DAYS; i += 3) {
+            updates.getEntries().add(entry(today.minusDays(i), 1 + random.nextInt(20000), random.nextInt(500)));
+        }
+        for (int i = 2; i <= DAYS; i += 5) {
+            MealRequest meal = new MealRequest();
+            meal.setDate(today.minusDays(i));
+            meal.setName("Lunch");
+            meal.setCalories(1 + random.nextInt(900));
+            updates.getMeals().add(meal);
+        }
+        healthService.saveBatch(user.getUsername(), updates);
+        
+        assertMatchesEntries(user, RollupPeriod.WEEK, today.minusDays(DAYS), today);
+        assertMatchesEntries(user, RollupPeriod.MONTH, today.minusDays(DAYS), today);
+    }
+    
+    @Test
+    void backfillCreatesRollupsForEntriesWrittenWithoutThem() {
+        User user = newUser();
+        LocalDate today = LocalDate.now();
+        Random random = new Random(11);
+        for (int i = 1; i <= DAYS; i++) {
+            HealthEntry entry = new HealthEntry();
+            entry.setUser(user);
+            entry.setDate(today.minusDays(i));
+            entry.setSteps(1 + random.nextInt(20000));
+            entry.setCalories(random.nextInt(3000));
+            healthEntryRepository.save(entry);
+        }
+        
+        rollupService.backfill(user);
+        
+        assertMatchesEntries(user, RollupPeriod.WEEK, today.minusDays(DAYS), today);
+        assertMatchesEntries(user, RollupPeriod.MONTH, today.minusDays(DAYS), today);
+        assertEquals(0, rollupService.backfill(user));
+    }
+    
+    @Test
+    void readsDoNotCreateRollups() {
+        User user = newUser();
+        BatchRequest request = new BatchRequest();
+        request.getEntries().add(entry(LocalDate.now().minusDays(1), 5000, 2000));
+        healthService.saveBatch(user.getUsername(), request);
+        long stored = activityRollupRepository.count();
+        
+        int year = LocalDate.now().getYear();
+        healthService.getYearlyReport(user.getUsername(), year - 1);
+        healthService.getYearlyReport(user.getUsername(), year + 1);
+        healthService.getMonthlyReport(user.getUsername(), year + 1, 6);
+        List<ActivityRollup> months = rollupService.rollups(user, RollupPeriod.MONTH,
+                LocalDate.of(year + 1, 1, 1), LocalDate.of(year + 1, 12, 1));
+        
+        assertEquals(stored, activityRollupRepository.count());
+        assertEquals(12, months.size());
+        for (ActivityRollup month : months) {
+            assertNull(month.getId());
+            assertEquals(0, month.getActiveDays());
+            assertEquals(0L, month.getTotalSteps());
+        }
+    }
+    
+    private void assertMatchesEntries(User user, RollupPeriod period, LocalDate from, LocalDate to) {
+        for (ActivityRollup rollup : rollupService.rollups(user, period, from, to)) {
+            LocalDate start = rollup.getPeriodStart();
+            List<HealthEntry> entries = healthEntryRepository
+                    .findByUserAndDateBetweenOrderByDateDesc(user, start, period.end(start));
+            String label = period + " " + start;
+            
+            assertEquals(entries.size(), rollup.getActiveDays(), label);
+            assertEquals(entries.stream().mapToLong(HealthEntry::getSteps).sum(), rollup.getTotalSteps(), label);
+            assertEquals(entries.stream().mapToLong(HealthEntry::getCalories).sum(), rollup.getTotalCalories(), label);
+            if (!entries.isEmpty()) {
+                assertEquals(entries.stream().mapToInt(HealthEntry::getSteps).max().getAsInt(), rollup.getMaxSteps(), label);
+                assertEquals(entries.stream().mapToInt(HealthEntry::getSteps).min().getAsInt(), rollup.getMinSteps(), label);
+                assertEquals(entries.stream().mapToInt(HealthEntry::getCalories).max().getAsInt(), rollup.getMaxCalories(), label);
+                assertEquals(entries.stream().mapToInt(HealthEntry::getCalories).min().getAsInt(), rollup.getMinCalories(), label);
+            }
+        }
+    }
+    
+    private static EntryRequest entry(LocalDate date, int steps, int calories) {
+        EntryRequest request = new EntryRequest();
+        request.setDate(date);
+        request.setSteps(steps);
+        request.setCalories(calories);
+        return request;
+    }
+}
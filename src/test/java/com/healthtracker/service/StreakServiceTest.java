@@ -0,0 +1,61 @@
+package com.healthtracker.service;
+
+import com.healthtracker.DatabaseTest;
+import com.healthtracker.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreakServiceTest extends DatabaseTest {
+    
+    @Autowired
+    private StreakService streakService;
+    
+    @Test
+    void lapsedStreaksAreZeroedAndOthersKept() {
+        User lapsed = newUser();
+        lapsed.setCurrentStreak(4);
+        lapsed.setLongestStreak(9);
+        lapsed.setLastActivityDate(LocalDate.now().minusDays(3).atStartOfDay());
+        userRepository.save(lapsed);
+        
+        User alive = newUser();
+        alive.setCurrentStreak(2);
+        alive.setLongestStreak(5);
+        alive.setLastActivityDate(LocalDate.now().minusDays(1).atStartOfDay());
+        userRepository.save(alive);
+        
+        streakService.expireLapsedStreaks();
+        
+        User lapsedAfter = userRepository.findById(lapsed.getId()).orElseThrow();
+        assertEquals(0, lapsedAfter.getCurrentStreak());
+        assertEquals(9, lapsedAfter.getLongestStreak());
+        User aliveAfter = userRepository.findById(alive.getId()).orElseThrow();
+        assertEquals(2, aliveAfter.getCurrentStreak());
+    }
+    
+    @Test
+    void recordDayWritesOnlyTheStreakColumns() {
+        User user = newUser();
+        user.setCurrentStreak(2);
+        user.setLongestStreak(2);
+        user.setLastActivityDate(LocalDate.now().minusDays(1).atStartOfDay());
+        userRepository.save(user);
+        
+        // A stale copy, as the user cache hands out, must not undo a concurrent profile change.
+        User stale = userRepository.findById(user.getId()).orElseThrow();
+        user.setDisplayName("Renamed");
+        userRepository.save(user);
+        
+        streakService.recordDay(stale, LocalDate.now(), true);
+        
+        User after = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(3, after.getCurrentStreak());
+        assertEquals(3, after.getLongestStreak());
+        assertEquals(LocalDate.now().atStartOfDay(), after.getLastActivityDate());
+        assertEquals("Renamed", after.getDisplayName());
+    }
+}